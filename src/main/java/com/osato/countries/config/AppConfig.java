@@ -1,13 +1,26 @@
 package com.osato.countries.config;
 
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.osato.countries.services.sources.CountrySourceProperties;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableConfigurationProperties(CountrySourceProperties.class)
 public class AppConfig {
 	@Bean
 	public RestTemplate restTemplate() {
 		return new RestTemplate();
 	}
+
+	// CountryDto carries a @JsonFilter; without a per-request filter every property is written
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer countryFieldsFilter() {
+		return builder -> builder.filters(new SimpleFilterProvider()
+				.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+	}
 }
\ No newline at end of file
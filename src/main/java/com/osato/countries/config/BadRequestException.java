@@ -0,0 +1,7 @@
+package com.osato.countries.config;
+
+public class BadRequestException extends RuntimeException {
+	public BadRequestException(String message) {
+		super(message);
+	}
+}
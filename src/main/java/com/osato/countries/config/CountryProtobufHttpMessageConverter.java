@@ -0,0 +1,118 @@
+package com.osato.countries.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryListDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes {@link CountryDto} and {@code List<CountryDto>} as protobuf using the published
+ * {@code proto/country.proto} schema. Lists are wrapped in a {@code CountryList} message.
+ * Write-only: request bodies are never accepted in this format.
+ */
+public class CountryProtobufHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+	public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+	public static final String SCHEMA_LOCATION = "proto/country.proto";
+
+	private final ProtobufSchema countrySchema;
+	private final ProtobufSchema countryListSchema;
+
+	/**
+	 * @param objectMapper mapper built on a {@code ProtobufFactory}
+	 */
+	public CountryProtobufHttpMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper, APPLICATION_PROTOBUF);
+		this.countrySchema = loadSchema("Country");
+		this.countryListSchema = loadSchema("CountryList");
+	}
+
+	public ProtobufSchema getCountrySchema() {
+		return countrySchema;
+	}
+
+	public ProtobufSchema getCountryListSchema() {
+		return countryListSchema;
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+		return CountryDto.class.isAssignableFrom(clazz) && canWrite(mediaType);
+	}
+
+	@Override
+	public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+		if (!canWrite(mediaType)) return false;
+		if (CountryDto.class.isAssignableFrom(clazz)) return true;
+		if (type == null || !List.class.isAssignableFrom(clazz)) return false;
+		Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+		return element != null && CountryDto.class.isAssignableFrom(element);
+	}
+
+	@Override
+	protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		Object value = object;
+		FilterProvider filters = null;
+		if (object instanceof MappingJacksonValue container) {
+			value = container.getValue();
+			filters = container.getFilters();
+		}
+
+		ObjectWriter writer;
+		if (value instanceof List<?> list) {
+			writer = getObjectMapper().writer(countryListSchema);
+			value = new CountryListDto(asCountries(list));
+		} else {
+			writer = getObjectMapper().writer(countrySchema);
+		}
+		if (filters != null) {
+			writer = writer.with(filters);
+		}
+
+		try {
+			writer.writeValue(outputMessage.getBody(), value);
+		} catch (IOException ex) {
+			throw new HttpMessageNotWritableException("Could not write protobuf: " + ex.getMessage(), ex);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<CountryDto> asCountries(List<?> list) {
+		return (List<CountryDto>) list;
+	}
+
+	private static ProtobufSchema loadSchema(String rootType) {
+		try (InputStream in = new ClassPathResource(SCHEMA_LOCATION).getInputStream()) {
+			return ProtobufSchemaLoader.std.load(in, rootType);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not load " + SCHEMA_LOCATION, e);
+		}
+	}
+}
@@ -3,26 +3,40 @@ package com.osato.countries.config;
 import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.Map;
 
+/**
+ * Error bodies are always JSON: the content type is fixed so they skip Accept negotiation, which would
+ * otherwise fail for formats that cannot write a map (protobuf) and hide the real status.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
 	@ExceptionHandler(ExternalApiException.class)
 	public ResponseEntity<?> handleExternalApi(ExternalApiException ex) {
 		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+							 .contentType(MediaType.APPLICATION_JSON)
 							 .body(Map.of(
 									 "error", "External data source unavailable",
 									 "details", "Could not fetch data from " + ex.getMessage()
 							 ));
 	}
 
+	@ExceptionHandler(BadRequestException.class)
+	public ResponseEntity<?> handleBadRequest(BadRequestException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+							 .contentType(MediaType.APPLICATION_JSON)
+							 .body(Map.of("error", ex.getMessage()));
+	}
+
 	@ExceptionHandler(NotFoundException.class)
 	public ResponseEntity<?> handleNotFound(NotFoundException ex) {
 		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+							 .contentType(MediaType.APPLICATION_JSON)
 							 .body(Map.of("error", ex.getMessage()));
 	}
 
@@ -30,6 +44,7 @@ public class GlobalExceptionHandler {
 	public ResponseEntity<?> handleOther(Exception ex) {
 		ex.printStackTrace(); // keep server logs
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+							 .contentType(MediaType.APPLICATION_JSON)
 							 .body(Map.of("error", "Internal server error"));
 	}
 }
\ No newline at end of file
@@ -1,7 +1,17 @@
 package com.osato.countries.config;
 
 public class NotFoundException extends RuntimeException {
+	/**
+	 * Shared instance for country lookups that miss. Misses are hot (crawlers, stale links) and
+	 * the stack trace is never logged, so it is allocated once and carries no trace.
+	 */
+	public static final NotFoundException COUNTRY = new NotFoundException("Country not found", false);
+
 	public NotFoundException(String message) {
 		super(message);
 	}
+
+	private NotFoundException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
 }
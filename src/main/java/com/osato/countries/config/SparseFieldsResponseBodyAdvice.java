@@ -0,0 +1,44 @@
+package com.osato.countries.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.osato.countries.controllers.CountryController;
+import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryField;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies {@code ?fields=} to the serializer so only the requested {@link CountryDto} properties are written,
+ * in every Jackson-backed format (JSON, CBOR, Smile, protobuf).
+ */
+@RestControllerAdvice(assignableTypes = CountryController.class)
+public class SparseFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+	@Override
+	protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+										   MethodParameter returnType, ServerHttpRequest request,
+										   ServerHttpResponse response) {
+		Object value = bodyContainer.getValue();
+		// error bodies are plain maps and must not re-parse (and re-reject) the parameter
+		if (!(value instanceof CountryDto || value instanceof Collection<?>)) return;
+		if (!(request instanceof ServletServerHttpRequest servletRequest)) return;
+
+		Set<CountryField> fields = CountryField.parse(servletRequest.getServletRequest().getParameter("fields"));
+		if (fields == null) return;
+
+		Set<String> names = fields.stream().map(CountryField::getJsonName).collect(Collectors.toSet());
+		bodyContainer.setFilters(new SimpleFilterProvider()
+				.addFilter(CountryDto.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+	}
+}
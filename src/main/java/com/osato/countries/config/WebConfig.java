@@ -0,0 +1,46 @@
+package com.osato.countries.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary response formats, selected through the Accept header:
+ * - application/cbor
+ * - application/x-jackson-smile
+ * - application/x-protobuf (country payloads only, see proto/country.proto)
+ * They are appended after the JSON converter so JSON stays the default for Accept: *&#47;*.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+	private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		// replace the framework defaults so binary formats share the Boot-configured Jackson setup
+		converters.removeIf(c -> c instanceof MappingJackson2SmileHttpMessageConverter
+				|| c instanceof MappingJackson2CborHttpMessageConverter);
+
+		converters.add(new MappingJackson2CborHttpMessageConverter(
+				objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(
+				objectMapperBuilder.getObject().factory(new SmileFactory()).build()));
+		converters.add(new CountryProtobufHttpMessageConverter(
+				objectMapperBuilder.getObject()
+								   .factory(new ProtobufFactory())
+								   .serializationInclusion(JsonInclude.Include.NON_NULL) // protobuf has no null
+								   .build()));
+	}
+}
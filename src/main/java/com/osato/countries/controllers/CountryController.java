@@ -2,9 +2,13 @@ package com.osato.countries.controllers;
 
 import com.osato.countries.config.ExternalApiException;
 import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryField;
+import com.osato.countries.models.dtos.CountryMetricsDto;
 import com.osato.countries.models.dtos.StatusResponse;
 import com.osato.countries.services.CountryService;
 import com.osato.countries.services.CountryWebClientService;
+import com.osato.countries.services.analytics.CountryQuery;
+import com.osato.countries.services.changes.CountryChangeFeed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -12,9 +16,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.File;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -26,14 +30,18 @@ import java.util.Map;
 public class CountryController {
 	private final CountryWebClientService  countryWebClientService;
 	private final CountryService countryService;
+	private final CountryChangeFeed countryChangeFeed;
 
 	@PostMapping("/countries/refresh")
-	public ResponseEntity<?> refresh() {
+	public ResponseEntity<?> refresh(@RequestParam(required = false) Long seed) {
 		try {
-			int processed = countryWebClientService.syncAllCountries();
+			// pass a previous seed to reproduce that refresh's estimated GDP values
+			long refreshSeed = seed != null ? seed : CountryWebClientService.newSeed();
+			int processed = countryWebClientService.syncAllCountries(refreshSeed);
 			return ResponseEntity.ok(Map.of(
 					"success", true,
 					"processed", processed,
+					"seed", refreshSeed,
 					"last_refreshed_at", Instant.now().toString()
 			));
 		} catch (ExternalApiException e) {
@@ -52,14 +60,35 @@ public class CountryController {
 	public ResponseEntity<List<CountryDto>> getCountries(
 			@RequestParam(required = false) String region,
 			@RequestParam(required = false) String currency,
-			@RequestParam(required = false) String sort
+			@RequestParam(required = false) String sort,
+			@RequestParam(required = false) String fields
 	) {
-		return ResponseEntity.ok(countryService.getCountries(region, currency, sort));
+		return ResponseEntity.ok(countryService.getCountries(region, currency, sort, CountryField.parse(fields)));
+	}
+
+	/**
+	 * Numeric range + top-K queries over the in-memory column store, e.g.
+	 * /countries/query?min_population=1000000&amp;max_population=50000000&amp;min_estimated_gdp=1e9&amp;sort_by=gdp_per_capita&amp;limit=20
+	 */
+	@GetMapping("/countries/query")
+	public ResponseEntity<List<CountryMetricsDto>> queryCountries(@RequestParam Map<String, String> params) {
+		return ResponseEntity.ok(countryService.query(CountryQuery.from(params)));
+	}
+
+	/**
+	 * SSE stream of per-country deltas; send Last-Event-ID to resume after a disconnect.
+	 */
+	@GetMapping(value = "/countries/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		return countryChangeFeed.subscribe(lastEventId);
 	}
 
 	@GetMapping("/countries/{name}")
-	public ResponseEntity<CountryDto> getCountryByName(@PathVariable String name) {
-		return ResponseEntity.ok(countryService.getByName(name));
+	public ResponseEntity<CountryDto> getCountryByName(
+			@PathVariable String name,
+			@RequestParam(required = false) String fields
+	) {
+		return ResponseEntity.ok(countryService.getByName(name, CountryField.parse(fields)));
 	}
 
 	@DeleteMapping("/countries/{name}")
@@ -73,27 +102,24 @@ public class CountryController {
 		return ResponseEntity.ok(countryService.getStatus());
 	}
 
+	/**
+	 * Summary PNG, optionally for one region and at a smaller width (snapped to app.image.widths).
+	 */
 	@GetMapping(value = "/countries/image", produces = MediaType.IMAGE_PNG_VALUE)
-	public ResponseEntity<?> getSummaryImage() {
+	public ResponseEntity<?> getSummaryImage(
+			@RequestParam(required = false) String region,
+			@RequestParam(required = false) Integer width
+	) {
 		try {
-			File cacheFile = new File("cache/summary.png"); // or use @Value config to read app.cache-dir
-			if (!cacheFile.exists()) {
-				// generate image now (safe); this will use imageService which sets headless mode
-				countryService.generateSummaryImage();
-				if (!cacheFile.exists()) {
-					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-										 .body(Map.of("error", "Summary image could not be generated"));
-				}
-			}
-			byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+			byte[] bytes = countryService.getSummaryImage(region, width);
 			HttpHeaders headers = new HttpHeaders();
 			headers.setContentType(MediaType.IMAGE_PNG);
 			headers.setContentLength(bytes.length);
 			return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
-		} catch (Exception e) {
+		} catch (UncheckedIOException e) {
 			log.error("Error serving summary image", e);
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-								 .body(Map.of("error", "Internal server error"));
+								 .body(Map.of("error", "Summary image could not be generated"));
 		}
 	}
 }
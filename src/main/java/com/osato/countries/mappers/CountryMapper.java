@@ -2,9 +2,14 @@
 package com.osato.countries.mappers;
 
 import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryField;
 import com.osato.countries.models.entities.Country;
+import jakarta.persistence.Tuple;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.Set;
+
 @Component
 public class CountryMapper {
 
@@ -23,6 +28,29 @@ public class CountryMapper {
 						 .build();
 	}
 
+	/**
+	 * Map a projection row; only the selected fields are set, the rest stay null.
+	 */
+	public CountryDto toDto(Tuple row, Set<CountryField> fields) {
+		CountryDto dto = new CountryDto();
+		for (CountryField field : fields) {
+			Object value = row.get(field.getAttribute());
+			switch (field) {
+				case ID -> dto.setId((Long) value);
+				case NAME -> dto.setName((String) value);
+				case CAPITAL -> dto.setCapital((String) value);
+				case REGION -> dto.setRegion((String) value);
+				case POPULATION -> dto.setPopulation((Long) value);
+				case CURRENCY_CODE -> dto.setCurrencyCode((String) value);
+				case EXCHANGE_RATE -> dto.setExchangeRate((Double) value);
+				case ESTIMATED_GDP -> dto.setEstimatedGdp((Double) value);
+				case FLAG_URL -> dto.setFlagUrl((String) value);
+				case LAST_REFRESHED_AT -> dto.setLastRefreshedAt((Instant) value);
+			}
+		}
+		return dto;
+	}
+
 	public Country toEntity(CountryDto dto) {
 		return Country.builder()
 					  .id(dto.getId())
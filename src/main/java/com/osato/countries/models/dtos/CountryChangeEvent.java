@@ -0,0 +1,31 @@
+package com.osato.countries.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * One per-country delta on {@code GET /countries/changes}.
+ * - type "upsert": {@code changes} holds the changed fields (all fields for a new country), keyed by JSON name
+ * - type "delete": no changes
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CountryChangeEvent {
+	public static final String UPSERT = "upsert";
+	public static final String DELETE = "delete";
+
+	private String type;
+	private String name;
+	private Long version;
+	private Map<String, Object> changes;
+}
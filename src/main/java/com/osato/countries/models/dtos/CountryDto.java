@@ -1,5 +1,6 @@
 	package com.osato.countries.models.dtos;
 
+	import com.fasterxml.jackson.annotation.JsonFilter;
 	import com.fasterxml.jackson.annotation.JsonFormat;
 	import com.fasterxml.jackson.annotation.JsonProperty;
 	import lombok.*;
@@ -11,7 +12,11 @@
 	@NoArgsConstructor
 	@AllArgsConstructor
 	@Builder
+	@JsonFilter(CountryDto.FIELDS_FILTER)
 	public class CountryDto {
+		/** Filter id used to honor {@code ?fields=}; serializes everything unless a request narrows it. */
+		public static final String FIELDS_FILTER = "countryFields";
+
 		private Long id;
 		private String name;
 		private String capital;
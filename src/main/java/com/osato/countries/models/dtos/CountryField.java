@@ -0,0 +1,52 @@
+package com.osato.countries.models.dtos;
+
+import com.osato.countries.config.BadRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Selectable properties of {@link CountryDto}, keyed by their JSON name, with the
+ * {@code Country} entity attribute each one is read from.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CountryField {
+	ID("id", "id"),
+	NAME("name", "name"),
+	CAPITAL("capital", "capital"),
+	REGION("region", "region"),
+	POPULATION("population", "population"),
+	CURRENCY_CODE("currency_code", "currencyCode"),
+	EXCHANGE_RATE("exchange_rate", "exchangeRate"),
+	ESTIMATED_GDP("estimated_gdp", "estimatedGdp"),
+	FLAG_URL("flag_url", "flagUrl"),
+	LAST_REFRESHED_AT("last_refreshed_at", "lastRefreshedAt");
+
+	private final String jsonName;
+	private final String attribute;
+
+	public static CountryField fromJsonName(String jsonName) {
+		String key = jsonName.trim().toLowerCase(Locale.ROOT);
+		for (CountryField field : values()) {
+			if (field.jsonName.equals(key)) return field;
+		}
+		throw new BadRequestException("Unknown field: " + jsonName.trim());
+	}
+
+	/**
+	 * Parse a comma separated {@code fields=} value.
+	 * Returns null when the parameter is absent or blank, meaning "all fields".
+	 */
+	public static Set<CountryField> parse(String fields) {
+		if (fields == null || fields.isBlank()) return null;
+		Set<CountryField> parsed = EnumSet.noneOf(CountryField.class);
+		for (String part : fields.split(",")) {
+			if (!part.isBlank()) parsed.add(fromJsonName(part));
+		}
+		return parsed.isEmpty() ? null : parsed;
+	}
+}
@@ -0,0 +1,19 @@
+package com.osato.countries.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Wrapper for list responses in formats that need a root message (protobuf's CountryList).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryListDto {
+	private List<CountryDto> countries;
+}
@@ -0,0 +1,35 @@
+package com.osato.countries.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Row of {@code GET /countries/query}: the numeric columns plus derived metrics.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CountryMetricsDto {
+	private String name;
+	private String region;
+
+	@JsonProperty("currency_code")
+	private String currencyCode;
+
+	private Long population;
+
+	@JsonProperty("exchange_rate")
+	private Double exchangeRate;
+
+	@JsonProperty("estimated_gdp")
+	private Double estimatedGdp;
+
+	@JsonProperty("gdp_per_capita")
+	private Double gdpPerCapita;
+}
@@ -9,8 +9,10 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CountryRepository extends JpaRepository<Country, Long> {
+public interface CountryRepository extends JpaRepository<Country, Long>, CountryRepositoryCustom {
 	Optional<Country> findByNameNormalized(String nameNormalized);
+	@Query("SELECT c.nameNormalized FROM Country c")
+	List<String> findAllNamesNormalized();
 	List<Country> findByRegion(String region);
 	List<Country> findByCurrencyCode(String currencyCode);
 	@Query("SELECT c FROM Country c ORDER BY c.estimatedGdp DESC")
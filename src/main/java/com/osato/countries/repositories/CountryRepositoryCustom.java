@@ -0,0 +1,18 @@
+package com.osato.countries.repositories;
+
+import com.osato.countries.models.dtos.CountryField;
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Projection queries that select only the requested columns instead of whole {@code Country} rows.
+ * Tuple elements are aliased with {@link CountryField#getAttribute()}.
+ */
+public interface CountryRepositoryCustom {
+	List<Tuple> findProjected(Set<CountryField> fields, String region, String currency, String sort);
+
+	Optional<Tuple> findProjectedByNameNormalized(String nameNormalized, Set<CountryField> fields);
+}
@@ -0,0 +1,89 @@
+package com.osato.countries.repositories;
+
+import com.osato.countries.models.dtos.CountryField;
+import com.osato.countries.models.entities.Country;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+public class CountryRepositoryCustomImpl implements CountryRepositoryCustom {
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Tuple> findProjected(Set<CountryField> fields, String region, String currency, String sort) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Country> root = query.from(Country.class);
+		query.multiselect(selections(root, fields));
+
+		// same semantics as the in-memory filters in CountryService (case-insensitive equality)
+		List<Predicate> where = new ArrayList<>();
+		if (region != null) {
+			where.add(cb.equal(cb.lower(root.get("region")), region.toLowerCase(Locale.ROOT)));
+		}
+		if (currency != null) {
+			where.add(cb.equal(cb.lower(root.get("currencyCode")), currency.toLowerCase(Locale.ROOT)));
+		}
+		query.where(where.toArray(new Predicate[0]));
+		query.orderBy(orderBy(cb, root, sort));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
+	@Override
+	public Optional<Tuple> findProjectedByNameNormalized(String nameNormalized, Set<CountryField> fields) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Country> root = query.from(Country.class);
+		query.multiselect(selections(root, fields))
+			 .where(cb.equal(root.get("nameNormalized"), nameNormalized));
+
+		return entityManager.createQuery(query)
+							.setMaxResults(1)
+							.getResultStream()
+							.findFirst();
+	}
+
+	private List<Selection<?>> selections(Root<Country> root, Set<CountryField> fields) {
+		List<Selection<?>> selections = new ArrayList<>(fields.size());
+		for (CountryField field : fields) {
+			selections.add(root.get(field.getAttribute()).alias(field.getAttribute()));
+		}
+		return selections;
+	}
+
+	/**
+	 * Null placement is spelled out so results match the in-memory comparators regardless of
+	 * the database's default: nulls first for both GDP orders, null names sort as "".
+	 */
+	private List<Order> orderBy(CriteriaBuilder cb, Root<Country> root, String sort) {
+		if (sort == null) return List.of();
+		Expression<Double> gdp = root.get("estimatedGdp");
+		Expression<Integer> gdpNullsFirst = cb.<Integer>selectCase()
+											  .when(cb.isNull(gdp), 0)
+											  .otherwise(1);
+		Expression<String> name = cb.coalesce(cb.lower(root.get("name")), "");
+
+		return switch (sort.toLowerCase(Locale.ROOT)) {
+			case "gdp_desc" -> List.of(cb.asc(gdpNullsFirst), cb.desc(gdp));
+			case "gdp_asc" -> List.of(cb.asc(gdpNullsFirst), cb.asc(gdp));
+			case "name_asc" -> List.of(cb.asc(name));
+			case "name_desc" -> List.of(cb.desc(name));
+			default -> List.of();
+		};
+	}
+}
@@ -0,0 +1,246 @@
+package com.osato.countries.repositories;
+
+import com.osato.countries.models.entities.Country;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Physical storage behind {@code countries}, which is a view over one of two identical tables,
+ * {@code countries_a} and {@code countries_b}. A refresh loads the next dataset into the table the view
+ * does not select from, then repoints the view with a single {@code CREATE OR REPLACE VIEW}, which is one
+ * atomic statement on PostgreSQL and H2: readers see either the old table or the new one, never neither.
+ * <p>
+ * Refreshes and deletes coordinate through two rows of the {@code metadata} table, locked with
+ * {@code SELECT ... FOR UPDATE} until the transaction ends, so they hold across instances sharing a database:
+ * - {@link #lockForRefresh}: one refresh at a time loads the staging table and swaps it in.
+ * - {@link #lockForSwap}: deletes go to the live table directly (H2 views are not updatable) and exclude the
+ *   swap, so a delete either commits before it and is dropped from the staged rows ({@link #dropDeletedSince}),
+ *   or waits and hits the new table.
+ * A refresh takes them in that order; a delete only takes the second. Which table is live is read from the
+ * view definition under these locks, never cached: a rolled-back swap can't leave a stale answer behind.
+ * <p>
+ * On first start the {@code countries} table (created by Hibernate or an earlier version) is copied into
+ * {@code countries_a} and replaced by the view.
+ */
+@Slf4j
+@Repository
+@DependsOn("entityManagerFactory") // Hibernate's schema update has run before init()
+@RequiredArgsConstructor
+public class CountryTablesRepository {
+	/** Rows per JDBC batch when loading the staging table. */
+	public static final int BATCH_SIZE = 500;
+	static final String VIEW = "countries";
+	static final String TABLE_A = "countries_a";
+	static final String TABLE_B = "countries_b";
+	private static final String LEGACY_STAGING = "countries_next";
+	static final String REFRESH_LOCK = "countries_refresh_lock";
+	static final String SWAP_LOCK = "countries_swap_lock";
+
+	private static final String COLUMNS = "id, name, name_normalized, capital, region, population, "
+			+ "currency_code, exchange_rate, estimated_gdp, flag_url, last_refreshed_at";
+
+	// mirrors the Country mapping (same columns and types as Hibernate generates)
+	private static final String CREATE_TABLE = """
+			CREATE TABLE IF NOT EXISTS %1$s (
+			    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+			    name VARCHAR(255) NOT NULL,
+			    name_normalized VARCHAR(255) NOT NULL,
+			    capital VARCHAR(255),
+			    region VARCHAR(255),
+			    population BIGINT NOT NULL,
+			    currency_code VARCHAR(255),
+			    exchange_rate DOUBLE PRECISION,
+			    estimated_gdp DOUBLE PRECISION,
+			    flag_url VARCHAR(1024),
+			    last_refreshed_at TIMESTAMP(6) WITH TIME ZONE,
+			    CONSTRAINT uk_%1$s_name_normalized UNIQUE (name_normalized)
+			)""";
+
+	private static final String INSERT = "INSERT INTO %s (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	// this instance's in-memory copies (filter, column store, change feed) follow swaps and deletes in
+	// commit order; held from lockForSwap until the transaction completes
+	private final ReentrantLock swapLock = new ReentrantLock();
+
+	@PostConstruct
+	public void init() {
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.execute(CREATE_TABLE.formatted(TABLE_A));
+			jdbcTemplate.execute(CREATE_TABLE.formatted(TABLE_B));
+			createLockRow(REFRESH_LOCK);
+			createLockRow(SWAP_LOCK);
+		});
+		transactionTemplate.executeWithoutResult(status -> {
+			// instances starting together: the first converts, the others find the view
+			lockRow(REFRESH_LOCK);
+			lockRow(SWAP_LOCK);
+			if (viewTarget() != null) return;
+			jdbcTemplate.execute("TRUNCATE TABLE " + TABLE_A);
+			jdbcTemplate.execute("INSERT INTO " + TABLE_A + " (" + COLUMNS + ") SELECT " + COLUMNS + " FROM " + VIEW);
+			jdbcTemplate.execute("DROP TABLE " + VIEW);
+			pointViewAt(TABLE_A);
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + LEGACY_STAGING);
+			log.info("Converted {} table into a view over {}", VIEW, TABLE_A);
+		});
+	}
+
+	/**
+	 * Wait for other refreshes, in any instance, to commit, and keep them waiting until the current transaction
+	 * ends. Call first in the refresh transaction.
+	 *
+	 * @return the live table; it stays live until this transaction's {@link #swap}
+	 */
+	public String lockForRefresh() {
+		lockRow(REFRESH_LOCK);
+		return liveTable();
+	}
+
+	/**
+	 * Hold deletes and other swaps off until the current transaction completes. After-commit callbacks (change
+	 * batches, in-memory rebuilds) still run under the lock, so this instance applies them in commit order.
+	 */
+	public void lockForSwap() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Call inside a transaction");
+		}
+		swapLock.lock();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				swapLock.unlock();
+			}
+		});
+		lockRow(SWAP_LOCK);
+	}
+
+	/**
+	 * Empty the staging table (the one {@code liveTable} is not) and batch-insert the full next dataset.
+	 * Rows must carry their id. Call after {@link #lockForRefresh}.
+	 *
+	 * @return number of JDBC batches executed
+	 */
+	public int load(String liveTable, List<Country> countries) {
+		String staging = stagingTable(liveTable);
+		// DELETE, not TRUNCATE: H2 commits on DDL, which would release the refresh lock
+		jdbcTemplate.update("DELETE FROM " + staging);
+		int[][] batches = jdbcTemplate.batchUpdate(INSERT.formatted(staging), countries, BATCH_SIZE, (ps, c) -> {
+			ps.setLong(1, c.getId());
+			ps.setString(2, c.getName());
+			ps.setString(3, c.getNameNormalized());
+			ps.setString(4, c.getCapital());
+			ps.setString(5, c.getRegion());
+			ps.setLong(6, c.getPopulation());
+			ps.setString(7, c.getCurrencyCode());
+			ps.setObject(8, c.getExchangeRate(), Types.DOUBLE);
+			ps.setObject(9, c.getEstimatedGdp(), Types.DOUBLE);
+			ps.setString(10, c.getFlagUrl());
+			ps.setObject(11, c.getLastRefreshedAt() == null ? null
+					: OffsetDateTime.ofInstant(c.getLastRefreshedAt(), ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+		});
+		return batches.length;
+	}
+
+	/**
+	 * Remove staged rows that were live when the refresh took its snapshot ({@code id <= snapshotMaxId})
+	 * but have been deleted since. Call after {@link #lockForSwap}, before {@link #swap}.
+	 *
+	 * @return ids removed
+	 */
+	public Set<Long> dropDeletedSince(String liveTable, long snapshotMaxId) {
+		requireSwapLock();
+		String deletedSince = " FROM " + stagingTable(liveTable) + " WHERE id <= ? AND id NOT IN (SELECT id FROM " + liveTable + ")";
+		List<Long> deleted = jdbcTemplate.queryForList("SELECT id" + deletedSince, Long.class, snapshotMaxId);
+		if (!deleted.isEmpty()) {
+			jdbcTemplate.update("DELETE" + deletedSince, snapshotMaxId);
+		}
+		return new HashSet<>(deleted);
+	}
+
+	/**
+	 * Point the view at the staged table. Call after {@link #lockForSwap}, as the last statement of the
+	 * transaction: on H2 it commits whatever the transaction has done so far.
+	 */
+	public void swap(String liveTable) {
+		requireSwapLock();
+		pointViewAt(stagingTable(liveTable));
+	}
+
+	/**
+	 * Delete from whichever table is live. Call after {@link #lockForSwap}.
+	 *
+	 * @return rows deleted: 0 when the country is already gone
+	 */
+	public int delete(String nameNormalized) {
+		requireSwapLock();
+		return jdbcTemplate.update("DELETE FROM " + liveTable() + " WHERE name_normalized = ?", nameNormalized);
+	}
+
+	private static String stagingTable(String liveTable) {
+		return TABLE_A.equals(liveTable) ? TABLE_B : TABLE_A;
+	}
+
+	private void pointViewAt(String table) {
+		// explicit column list: both tables must produce identical view columns
+		jdbcTemplate.execute("CREATE OR REPLACE VIEW " + VIEW + " AS SELECT " + COLUMNS + " FROM " + table);
+	}
+
+	private String liveTable() {
+		String table = viewTarget();
+		if (table == null) throw new IllegalStateException(VIEW + " is not a view; was it replaced since startup?");
+		return table;
+	}
+
+	/**
+	 * Table the countries view selects from, null while countries is still a plain table.
+	 */
+	private String viewTarget() {
+		List<String> definitions = jdbcTemplate.queryForList(
+				"SELECT view_definition FROM information_schema.views"
+						+ " WHERE lower(table_name) = ? AND lower(table_schema) = lower(current_schema)",
+				String.class, VIEW);
+		if (definitions.isEmpty()) return null;
+		String definition = definitions.getFirst();
+		if (definition == null) {
+			// PostgreSQL hides the definition from roles that don't own the view; they couldn't replace it either
+			throw new IllegalStateException("Cannot read the definition of view " + VIEW
+					+ "; connect as the role that owns it");
+		}
+		return definition.toLowerCase(Locale.ROOT).contains(TABLE_B) ? TABLE_B : TABLE_A;
+	}
+
+	private void createLockRow(String key) {
+		// no-op when it exists, including when another instance starting at the same time just inserted it
+		jdbcTemplate.update("INSERT INTO metadata (key_name, updated_at) VALUES (?, CURRENT_TIMESTAMP)"
+				+ " ON CONFLICT DO NOTHING", key);
+	}
+
+	private void lockRow(String key) {
+		List<String> locked = jdbcTemplate.queryForList("SELECT key_name FROM metadata WHERE key_name = ? FOR UPDATE", String.class, key);
+		if (locked.isEmpty()) throw new IllegalStateException("Lock row " + key + " is missing from metadata");
+	}
+
+	private void requireSwapLock() {
+		if (!swapLock.isHeldByCurrentThread()) {
+			throw new IllegalStateException("Call after lockForSwap()");
+		}
+	}
+}
@@ -2,6 +2,21 @@ package com.osato.countries.repositories;
 
 import com.osato.countries.models.entities.Metadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface MetadataRepository extends JpaRepository<Metadata, String> {
+	/**
+	 * Atomic increment of a numeric value; the row stays locked until the transaction ends.
+	 * @return rows updated, 0 when the key does not exist yet
+	 */
+	@Modifying
+	@Query(value = "UPDATE metadata SET value_text = CAST(CAST(value_text AS BIGINT) + 1 AS VARCHAR(20)), "
+			+ "updated_at = CURRENT_TIMESTAMP WHERE key_name = :keyName", nativeQuery = true)
+	int increment(@Param("keyName") String keyName);
+
+	/** Current value straight from the table, bypassing any entity already in the persistence context. */
+	@Query(value = "SELECT value_text FROM metadata WHERE key_name = :keyName", nativeQuery = true)
+	String findValueText(@Param("keyName") String keyName);
 }
@@ -0,0 +1,116 @@
+package com.osato.countries.services;
+
+import com.osato.countries.repositories.CountryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * In-memory membership filter over {@code Country.nameNormalized} (a counting Bloom filter).
+ * - mightContain == false -> the country definitely does not exist, no DB query needed
+ * - mightContain == true  -> it probably exists, go to the DB
+ * Rebuilt after every refresh, decremented on delete. Until the first build it answers true for everything.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountryNameFilter {
+	private static final int COUNTERS_PER_NAME = 16;
+	private static final int MIN_COUNTERS = 1 << 12;
+	// optimal for 16 counters per name (16 ln 2): (1 - e^(-11/16))^11 ~ 0.05% false positives
+	private static final int PROBES = 11;
+
+	private final CountryRepository countryRepository;
+
+	// replaced wholesale on rebuild so readers never see a half-built filter
+	private volatile Counters counters;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		try {
+			rebuild(countryRepository.findAllNamesNormalized());
+		} catch (Exception e) {
+			// stay permissive: lookups fall through to the DB
+			log.warn("Could not build country name filter: {}", e.getMessage());
+		}
+	}
+
+	public void rebuild(Collection<String> namesNormalized) {
+		Counters next = new Counters(namesNormalized.size());
+		for (String name : namesNormalized) {
+			if (name != null) next.add(name);
+		}
+		counters = next;
+		log.debug("Country name filter rebuilt with {} names", namesNormalized.size());
+	}
+
+	public boolean mightContain(String nameNormalized) {
+		Counters current = counters;
+		return current == null || current.mightContain(nameNormalized);
+	}
+
+	public void remove(String nameNormalized) {
+		Counters current = counters;
+		if (current != null) current.remove(nameNormalized);
+	}
+
+	private static final class Counters {
+		private final byte[] slots;
+		private final int mask;
+
+		Counters(int expectedNames) {
+			int wanted = Math.max(MIN_COUNTERS, expectedNames * COUNTERS_PER_NAME);
+			int size = Integer.highestOneBit(wanted - 1) << 1;
+			slots = new byte[size];
+			mask = size - 1;
+		}
+
+		void add(String name) {
+			long h1 = hash(name);
+			long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+			for (int i = 0; i < PROBES; i++) {
+				int slot = (int) (h1 + i * h2) & mask;
+				if (slots[slot] != Byte.MAX_VALUE) slots[slot]++; // saturated counters stay put
+			}
+		}
+
+		boolean mightContain(String name) {
+			long h1 = hash(name);
+			long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+			for (int i = 0; i < PROBES; i++) {
+				if (slots[(int) (h1 + i * h2) & mask] == 0) return false;
+			}
+			return true;
+		}
+
+		// only called by the request whose delete removed the row, so once per added name
+		synchronized void remove(String name) {
+			long h1 = hash(name);
+			long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+			for (int i = 0; i < PROBES; i++) {
+				int slot = (int) (h1 + i * h2) & mask;
+				if (slots[slot] > 0 && slots[slot] != Byte.MAX_VALUE) slots[slot]--;
+			}
+		}
+
+		// 64-bit FNV-1a over the chars, finalized with a mixer
+		private static long hash(String s) {
+			long h = 0xCBF29CE484222325L;
+			for (int i = 0; i < s.length(); i++) {
+				h ^= s.charAt(i);
+				h *= 0x100000001B3L;
+			}
+			return mix(h);
+		}
+
+		private static long mix(long z) {
+			z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+			z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+			return z ^ (z >>> 33);
+		}
+	}
+}
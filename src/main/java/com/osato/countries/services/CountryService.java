@@ -2,27 +2,42 @@ package com.osato.countries.services;
 
 import com.osato.countries.config.NotFoundException;
 import com.osato.countries.mappers.CountryMapper;
+import com.osato.countries.models.dtos.CountryChangeEvent;
 import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryField;
+import com.osato.countries.models.dtos.CountryMetricsDto;
 import com.osato.countries.models.dtos.StatusResponse;
 import com.osato.countries.models.entities.Country;
 import com.osato.countries.repositories.CountryRepository;
+import com.osato.countries.repositories.CountryTablesRepository;
+import com.osato.countries.services.analytics.CountryColumnStore;
+import com.osato.countries.services.analytics.CountryQuery;
+import com.osato.countries.services.changes.CountryChangeBatch;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CountryService {
 	private final CountryRepository countryRepository;
+	private final CountryTablesRepository countryTablesRepository;
 	private final CountryMapper mapper;
 	private final ImageService imageService;
+	private final CountryNameFilter countryNameFilter;
+	private final CountryColumnStore countryColumnStore;
+	private final MetadataService metadataService;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
 
 	public List<CountryDto> getAllCountries() {
 		return countryRepository.findAll()
@@ -31,7 +46,17 @@ public class CountryService {
 								.collect(Collectors.toList());
 	}
 
-	public List<CountryDto> getCountries(String region, String currency, String sort) {
+	/**
+	 * @param fields properties to load and return, null for all of them
+	 */
+	public List<CountryDto> getCountries(String region, String currency, String sort, Set<CountryField> fields) {
+		if (fields != null) {
+			return countryRepository.findProjected(fields, region, currency, sort)
+									.stream()
+									.map(row -> mapper.toDto(row, fields))
+									.collect(Collectors.toList());
+		}
+
 		List<Country> countries = countryRepository.findAll();
 
 		// Filters
@@ -72,10 +97,19 @@ public class CountryService {
 						.collect(Collectors.toList());
 	}
 
-	public CountryDto getByName(String name) {
-		Optional<Country> country = countryRepository.findByNameNormalized(name.toLowerCase());
+	public CountryDto getByName(String name, Set<CountryField> fields) {
+		String key = name.toLowerCase();
+		// definite misses are answered without touching the DB
+		if (!countryNameFilter.mightContain(key)) throw NotFoundException.COUNTRY;
+
+		if (fields != null) {
+			return countryRepository.findProjectedByNameNormalized(key, fields)
+									.map(row -> mapper.toDto(row, fields))
+									.orElseThrow(() -> NotFoundException.COUNTRY);
+		}
+		Optional<Country> country = countryRepository.findByNameNormalized(key);
 		return country.map(mapper::toDto)
-					  .orElseThrow(() -> new NotFoundException("Country not found"));
+					  .orElseThrow(() -> NotFoundException.COUNTRY);
 	}
 
 	public List<CountryDto> getByRegion(String region) {
@@ -104,14 +138,35 @@ public class CountryService {
 	}
 
 	public void deleteByName(String name) {
-		Optional<Country> country = countryRepository.findByNameNormalized(name.toLowerCase());
-		country.ifPresentOrElse(countryRepository::delete,
-								() -> { throw new NotFoundException("Country not found"); });
+		String key = name.toLowerCase();
+		if (!countryNameFilter.mightContain(key)) throw NotFoundException.COUNTRY;
+
+		Country country = countryRepository.findByNameNormalized(key)
+										   .orElseThrow(() -> NotFoundException.COUNTRY);
+		transactionTemplate.executeWithoutResult(status -> {
+			// the batch is delivered on commit, still under the swap lock, so it reaches the change feed
+			// in version order with refreshes
+			countryTablesRepository.lockForSwap();
+			if (countryTablesRepository.delete(key) == 0) throw NotFoundException.COUNTRY;
+
+			long version = metadataService.nextDatasetVersion();
+			eventPublisher.publishEvent(new CountryChangeBatch(version, List.of(CountryChangeEvent.builder()
+					.type(CountryChangeEvent.DELETE)
+					.name(country.getName())
+					.version(version)
+					.build())));
+		});
+		// committed: only the request that actually removed the row may decrement the filter's counters
+		countryNameFilter.remove(key);
+		countryColumnStore.remove(key);
+		imageService.invalidate();
+	}
+
+	public List<CountryMetricsDto> query(CountryQuery query) {
+		return countryColumnStore.query(query);
 	}
 
-	public void generateSummaryImage() throws Exception {
-		long total = countryRepository.count();
-		List<Country> top5 = countryRepository.findTop5ByGdp(PageRequest.of(0, 5));
-		imageService.generateSummaryImage(total, top5, Instant.now());
+	public byte[] getSummaryImage(String region, Integer width) {
+		return imageService.getSummaryImage(region, width);
 	}
 }
@@ -1,24 +1,39 @@
 package com.osato.countries.services;
 
 import com.osato.countries.config.ExternalApiException;
+import com.osato.countries.models.dtos.CountryChangeEvent;
+import com.osato.countries.models.dtos.CountryField;
 import com.osato.countries.models.entities.Country;
 import com.osato.countries.repositories.CountryRepository;
+import com.osato.countries.repositories.CountryTablesRepository;
+import com.osato.countries.services.analytics.CountryColumnStore;
+import com.osato.countries.services.changes.CountryChangeBatch;
+import com.osato.countries.services.sources.CountrySources;
+import com.osato.countries.services.sources.RawCountry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Service that fetches countries and exchange rates, maps them, and upserts into DB.
- * - Transactional: will roll back DB changes if something fails during upsert.
- * - Handles multiple external API shapes (v2 / v3).
+ * Service that fetches countries and exchange rates, maps them, and replaces the countries table.
+ * - Countries come from the configured {@link CountrySources} (v2 / v3 APIs, local files), rates from app.rates-api.
+ * - Mapping runs in parallel; GDP multipliers derive from (refresh seed, country name) so a seed replays exactly.
+ * - Fetching and mapping run outside any transaction. The next dataset is then loaded into the table the countries
+ *   view doesn't select from and swapped in, in one transaction holding the refresh lock (see
+ *   {@link CountryTablesRepository}). Readers never wait; deletes only wait for the swap at the end.
+ * - Per-country deltas are published as a {@link CountryChangeBatch} (SSE change feed) when the swap commits.
  */
 @Slf4j
 @Service
@@ -26,37 +41,42 @@ import java.util.*;
 public class CountryWebClientService {
 	private final RestTemplate restTemplate;
 	private final CountryRepository countryRepository;
-
-	@Value("${app.countries-api:https://restcountries.com/v2/all?fields=name,capital,region,population,flag,currencies}")
-	private String COUNTRIES_API;
+	private final CountryTablesRepository countryTablesRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final CountrySources countrySources;
+	private final CountryNameFilter countryNameFilter;
+	private final CountryColumnStore countryColumnStore;
+	private final ImageService imageService;
+	private final MetadataService metadataService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Value("${app.rates-api:https://open.er-api.com/v6/latest/USD}")
 	private String RATES_API;
 
 	private static final int MIN_MULTIPLIER = 1000;
 	private static final int MAX_MULTIPLIER = 2000;
-	private final Random rng = new Random();
+	private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final List<CountryField> DIFFED_FIELDS = List.of(
+			CountryField.CAPITAL, CountryField.REGION, CountryField.POPULATION,
+			CountryField.CURRENCY_CODE, CountryField.EXCHANGE_RATE, CountryField.ESTIMATED_GDP, CountryField.FLAG_URL);
+
+	public static long newSeed() {
+		return ThreadLocalRandom.current().nextLong();
+	}
 
 	/**
-	 * Full refresh: fetch external data and upsert countries.
+	 * Full refresh: fetch external data and replace the countries table with the merged result.
+	 * Countries missing upstream are kept as they are (same as an upsert).
 	 * If external API calls fail -> throws RuntimeException (caller should map to 503) and DB is not modified.
 	 * <p>
+	 * The seed fixes every GDP multiplier; running again with the same seed and upstream data gives the same values.
+	 * It is stored in metadata under {@link MetadataService#LAST_REFRESH_SEED}.
+	 * <p>
 	 * Returns number of processed countries (inserted + updated).
 	 */
-	@Transactional
-	public int syncAllCountries() {
-		// 1) fetch countries
-		Object[] countriesRaw = new Object[0];
-		try {
-			ResponseEntity<Object[]> response = restTemplate.getForEntity(COUNTRIES_API, Object[].class);
-			if (response.getBody() == null || response.getBody().length == 0) {
-				throw new RuntimeException("Countries not found: ");
-			}
-			countriesRaw = response.getBody();
-		} catch (RestClientException e) {
-			log.error("Failed to fetch countries API: {}", e.getMessage(), e);
-			throw new ExternalApiException("Countries API");
-		}
+	public int syncAllCountries(long seed) {
+		// 1) fetch countries (decoded and merged across sources)
+		List<RawCountry> countriesRaw = countrySources.fetchAll();
 
 		Map<String, Object> ratesMap = Map.of();
 		try {
@@ -78,71 +98,188 @@ public class CountryWebClientService {
 			throw new ExternalApiException("Rates API");
 		}
 
-		List<Country> toUpsert = new ArrayList<>(countriesRaw.length);
-		for (Object raw : countriesRaw) {
-			if (!(raw instanceof Map)) {
-				log.warn("Skipping non-map country record: {}", raw);
-				continue;
-			}
-			@SuppressWarnings("unchecked")
-			Map<String, Object> data = (Map<String, Object>) raw;
-			try {
-				Country mapped = mapToCountry(data, ratesMap);
-				if (mapped != null) {
-					mapped.setLastRefreshedAt(Instant.now());
-					// ensure normalized name for upsert lookups
-					String norm = safeNormalize(mapped.getName());
-					mapped.setNameNormalized(norm);
-					toUpsert.add(mapped);
-				}
-			} catch (Exception ex) {
-				log.error("Failed to map country: {}", data.get("name"), ex);
-			}
+		// 2) records are independent: map them in parallel, keeping upstream order
+		Map<String, Object> rates = ratesMap;
+		Instant refreshedAt = Instant.now();
+		List<Country> incoming = countriesRaw.parallelStream()
+											 .map(raw -> mapRecord(raw, rates, seed, refreshedAt))
+											 .filter(Objects::nonNull)
+											 .toList();
+
+		// 3-6) one refresh at a time, in any instance: they share the staging table
+		int processed = transactionTemplate.execute(status -> replace(incoming, seed));
+		try {
+			imageService.renderAll(refreshedAt);
+		} catch (RuntimeException e) {
+			// images re-render on demand; the refresh itself succeeded
+			log.warn("Could not render summary images: {}", e.getMessage());
+		}
+
+		log.info("Refresh complete - processed {} countries (seed {})", processed, seed);
+		return processed;
+	}
+
+	/**
+	 * Inside the refresh transaction: diff, stage and swap in the next dataset, store metadata and queue the
+	 * change batch (delivered on commit).
+	 *
+	 * @return number of processed countries
+	 */
+	private int replace(List<Country> incoming, long seed) {
+		String liveTable = countryTablesRepository.lockForRefresh();
+
+		// 3) diff against the live rows: keep ids, collect deltas. Loaded entities are never modified,
+		//    the next dataset is built from fresh objects.
+		Map<String, Country> current = new HashMap<>();
+		long maxId = 0;
+		for (Country existing : countryRepository.findAll()) {
+			current.put(existing.getNameNormalized(), existing);
+			maxId = Math.max(maxId, existing.getId());
 		}
+		long snapshotMaxId = maxId;
 
+		Map<String, Country> next = new LinkedHashMap<>(current.size() + incoming.size());
+		List<CountryChangeEvent> changes = new ArrayList<>();
 		int processed = 0;
-		for (Country incoming : toUpsert) {
-			Optional<Country> existingOpt = countryRepository.findByNameNormalized(incoming.getNameNormalized());
-			if (existingOpt.isPresent()) {
-				Country existing = existingOpt.get();
-				// update fields
-				existing.setCapital(incoming.getCapital());
-				existing.setRegion(incoming.getRegion());
-				existing.setPopulation(incoming.getPopulation());
-				existing.setCurrencyCode(incoming.getCurrencyCode());
-				existing.setExchangeRate(incoming.getExchangeRate());
-				existing.setEstimatedGdp(incoming.getEstimatedGdp());
-				existing.setFlagUrl(incoming.getFlagUrl());
-				existing.setLastRefreshedAt(incoming.getLastRefreshedAt());
-				countryRepository.save(existing);
-			} else {
-				countryRepository.save(incoming);
+		for (Country country : incoming) {
+			Country existing = current.get(country.getNameNormalized());
+			if (existing != null) country.setName(existing.getName()); // name is the key, not updated
+			Country previous = next.containsKey(country.getNameNormalized()) ? next.get(country.getNameNormalized()) : existing;
+			Map<String, Object> changed = diff(previous, country);
+			if (!changed.isEmpty()) {
+				changes.add(CountryChangeEvent.builder()
+											  .type(CountryChangeEvent.UPSERT)
+											  .name(country.getName())
+											  .changes(changed)
+											  .build());
 			}
+			country.setId(previous != null ? previous.getId() : ++maxId);
+			next.put(country.getNameNormalized(), country);
 			processed++;
 		}
+		for (Country existing : current.values()) {
+			next.putIfAbsent(existing.getNameNormalized(), copyOf(existing));
+		}
+		List<Country> dataset = new ArrayList<>(next.values());
+
+		// 4) names go into the filter before they become visible: an extra name only costs a DB lookup,
+		//    a missing one would be a false 404
+		countryNameFilter.rebuild(next.keySet());
+
+		// 5) load the staging table; readers still see the live one, deletes still go to it
+		countryTablesRepository.load(liveTable, dataset);
+
+		// 6) swap it in. Deletes are held off from here: those committed since the snapshot are dropped from
+		//    the staged rows, later ones hit the new table.
+		countryTablesRepository.lockForSwap();
+		Set<Long> deleted = countryTablesRepository.dropDeletedSince(liveTable, snapshotMaxId);
+		List<Country> live = dataset;
+		List<CountryChangeEvent> published = changes;
+		if (!deleted.isEmpty()) {
+			Set<String> deletedNames = new HashSet<>();
+			live = new ArrayList<>(dataset.size());
+			for (Country country : dataset) {
+				if (deleted.contains(country.getId())) deletedNames.add(country.getName());
+				else live.add(country);
+			}
+			published = changes.stream().filter(change -> !deletedNames.contains(change.getName())).toList();
+			log.info("Kept {} countries deleted during the refresh out of it", deleted.size());
+		}
 
-		log.info("Refresh complete - processed {} countries", processed);
+		metadataService.put(MetadataService.LAST_REFRESH_SEED, Long.toString(seed));
+		if (!published.isEmpty()) {
+			long version = metadataService.nextDatasetVersion();
+			published.forEach(change -> change.setVersion(version));
+			eventPublisher.publishEvent(new CountryChangeBatch(version, published));
+		}
+		// still under the swap lock after commit, so a later delete's removal can't be overwritten
+		List<Country> columns = live;
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				countryColumnStore.rebuild(columns);
+			}
+		});
+		countryTablesRepository.swap(liveTable);
 		return processed;
 	}
 
+	private static Country copyOf(Country c) {
+		return Country.builder()
+					  .id(c.getId())
+					  .name(c.getName())
+					  .nameNormalized(c.getNameNormalized())
+					  .capital(c.getCapital())
+					  .region(c.getRegion())
+					  .population(c.getPopulation())
+					  .currencyCode(c.getCurrencyCode())
+					  .exchangeRate(c.getExchangeRate())
+					  .estimatedGdp(c.getEstimatedGdp())
+					  .flagUrl(c.getFlagUrl())
+					  .lastRefreshedAt(c.getLastRefreshedAt())
+					  .build();
+	}
+
+	/**
+	 * Fields of {@code incoming} that differ from {@code existing}, keyed by JSON name; every field for a new
+	 * country. last_refreshed_at is left out since it changes on every refresh.
+	 */
+	private static Map<String, Object> diff(Country existing, Country incoming) {
+		Map<String, Object> changed = new LinkedHashMap<>();
+		for (CountryField field : DIFFED_FIELDS) {
+			Object after = valueOf(incoming, field);
+			if (existing == null || !Objects.equals(valueOf(existing, field), after)) {
+				changed.put(field.getJsonName(), after);
+			}
+		}
+		return changed;
+	}
+
+	private static Object valueOf(Country country, CountryField field) {
+		return switch (field) {
+			case NAME -> country.getName();
+			case CAPITAL -> country.getCapital();
+			case REGION -> country.getRegion();
+			case POPULATION -> country.getPopulation();
+			case CURRENCY_CODE -> country.getCurrencyCode();
+			case EXCHANGE_RATE -> country.getExchangeRate();
+			case ESTIMATED_GDP -> country.getEstimatedGdp();
+			case FLAG_URL -> country.getFlagUrl();
+			case ID -> country.getId();
+			case LAST_REFRESHED_AT -> country.getLastRefreshedAt();
+		};
+	}
+
 	/**
-	 * Map a raw country map to our Country entity following the spec rules:
+	 * Map one decoded record, or null (logged) when it can't be mapped. Pure function of its arguments.
+	 */
+	static Country mapRecord(RawCountry raw, Map<String, Object> ratesMap, long seed, Instant refreshedAt) {
+		try {
+			Country mapped = mapToCountry(raw, ratesMap, seed);
+			if (mapped != null) {
+				mapped.setLastRefreshedAt(refreshedAt);
+			}
+			return mapped;
+		} catch (Exception ex) {
+			log.error("Failed to map country: {}", raw.getName(), ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Map a decoded country to our Country entity following the spec rules:
 	 * - extract first currency code if available
 	 * - if no currencies -> currencyCode=null, exchangeRate=null, estimatedGdp=0
 	 * - if currency exists but not found in rates -> exchangeRate=null, estimatedGdp=null
 	 * - if found -> compute estimatedGdp = population * multiplier(1000..2000) / exchangeRate
 	 */
-	private Country mapToCountry(Map<String, Object> data, Map<String, Object> ratesMap) {
-		String name = extractName(data);
+	private static Country mapToCountry(RawCountry raw, Map<String, Object> ratesMap, long seed) {
+		String name = raw.getName();
 		if (name == null || name.isBlank()) return null;
+		String nameNormalized = raw.nameNormalized();
 
-		String capital = extractCapital(data);
-		String region = safeString(data.get("region"));
-		Long population = extractLong(data.get("population"));
-		String flagUrl = extractFlag(data);
-
-		// currencies: handle multiple shapes
-		String currencyCode = extractCurrencyCode(data);
+		Long population = raw.getPopulation();
+		String currencyCode = raw.getCurrencyCode();
 
 		Double exchangeRate = null;
 		Double estimatedGdp = null;
@@ -156,7 +293,7 @@ public class CountryWebClientService {
 				if (exchangeRate == 0.0) {
 					exchangeRate = null;
 				} else {
-					int multiplier = randomMultiplier();
+					int multiplier = multiplier(seed, nameNormalized);
 					long pop = population == null ? 0L : population;
 					estimatedGdp = (pop * (double) multiplier) / exchangeRate;
 				}
@@ -165,124 +302,24 @@ public class CountryWebClientService {
 
 		return Country.builder()
 					  .name(name)
-					  .nameNormalized(safeNormalize(name))
-					  .capital(capital)
-					  .region(region)
+					  .nameNormalized(nameNormalized)
+					  .capital(raw.getCapital())
+					  .region(raw.getRegion())
 					  .population(population == null ? 0L : population)
 					  .currencyCode(currencyCode)
 					  .exchangeRate(exchangeRate)
 					  .estimatedGdp(estimatedGdp)
-					  .flagUrl(flagUrl)
+					  .flagUrl(raw.getFlagUrl())
 					  .build();
 	}
 
-	private String extractName(Map<String, Object> data) {
-		Object nameObj = data.get("name");
-		if (nameObj == null) return null;
-		if (nameObj instanceof String) return (String) nameObj;
-		if (nameObj instanceof Map) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> m = (Map<String, Object>) nameObj;
-			// try v3 shape: common, official
-			Object common = m.get("common");
-			if (common instanceof String) return (String) common;
-			Object official = m.get("official");
-			if (official instanceof String) return (String) official;
-			// fallback: any string value found
-			for (Object v : m.values()) {
-				if (v instanceof String) return (String) v;
-			}
-			return null;
-		}
-		return String.valueOf(nameObj);
-	}
-
-	private String extractCapital(Map<String, Object> data) {
-		Object cap = data.get("capital");
-		if (cap == null) return null;
-		if (cap instanceof String) return (String) cap;
-		if (cap instanceof List<?> list) {
-			if (!list.isEmpty()) return String.valueOf(list.getFirst());
-			return null;
-		}
-		return String.valueOf(cap);
-	}
-
-	private String extractFlag(Map<String, Object> data) {
-		Object flagObj = data.get("flag"); // v2 uses "flag" often
-		if (flagObj instanceof String) return (String) flagObj;
-		Object flagsObj = data.get("flags"); // v3 uses "flags": { svg: ..., png: ... }
-		if (flagsObj instanceof Map) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> flags = (Map<String, Object>) flagsObj;
-			Object svg = flags.get("svg");
-			if (svg instanceof String) return (String) svg;
-			Object png = flags.get("png");
-			if (png instanceof String) return (String) png;
-		}
-		return null;
-	}
-
-	private String extractCurrencyCode(Map<String, Object> data) {
-		Object currenciesObj = data.get("currencies");
-		if (currenciesObj == null) return null;
-
-		// shape A: map keyed by currency code (value object with name / symbol)
-		if (currenciesObj instanceof Map) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> currenciesMap = (Map<String, Object>) currenciesObj;
-			if (currenciesMap.isEmpty()) return null;
-			// first key
-			return currenciesMap.keySet().iterator().next();
-		}
-
-		// shape B: list/array of objects like [{code: "NGN", name: "..."}]
-		if (currenciesObj instanceof List<?> list) {
-			if (list.isEmpty()) return null;
-			Object first = list.getFirst();
-			if (first instanceof Map) {
-				Object code = ((Map<?, ?>) first).get("code");
-				return code == null ? null : String.valueOf(code);
-			} else {
-				return String.valueOf(first);
-			}
-		}
-
-		// fallback: array
-		if (currenciesObj.getClass().isArray()) {
-			Object[] arr = (Object[]) currenciesObj;
-			if (arr.length == 0) return null;
-			Object first = arr[0];
-			if (first instanceof Map) {
-				Object code = ((Map<?, ?>) first).get("code");
-				return code == null ? null : String.valueOf(code);
-			} else {
-				return String.valueOf(first);
-			}
-		}
-
-		return null;
-	}
-
-	private Long extractLong(Object o) {
-		if (o == null) return 0L;
-		if (o instanceof Number) return ((Number) o).longValue();
-		try {
-			return Long.parseLong(String.valueOf(o));
-		} catch (Exception e) {
-			return 0L;
-		}
-	}
-
-	private String safeString(Object o) {
-		return o == null ? null : String.valueOf(o);
-	}
-
-	private String safeNormalize(String s) {
-		return s == null ? null : s.trim().toLowerCase(Locale.ROOT);
-	}
-
-	private int randomMultiplier() {
-		return MIN_MULTIPLIER + rng.nextInt(MAX_MULTIPLIER - MIN_MULTIPLIER + 1);
+	/**
+	 * Multiplier in [MIN_MULTIPLIER, MAX_MULTIPLIER], fixed by (seed, country).
+	 * Each record gets its own generator, so there is no shared state between mapping threads
+	 * and the result does not depend on processing order.
+	 */
+	private static int multiplier(long seed, String nameNormalized) {
+		SplittableRandom random = new SplittableRandom(seed ^ (nameNormalized.hashCode() * SEED_GAMMA));
+		return random.nextInt(MIN_MULTIPLIER, MAX_MULTIPLIER + 1);
 	}
 }
@@ -1,61 +1,241 @@
 package com.osato.countries.services;
 
-import com.osato.countries.models.entities.Country;
+import com.osato.countries.config.BadRequestException;
+import com.osato.countries.config.NotFoundException;
+import com.osato.countries.models.dtos.CountryMetricsDto;
+import com.osato.countries.services.analytics.CountryColumnStore;
+import com.osato.countries.services.analytics.CountryQuery;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.text.NumberFormat;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
+/**
+ * Summary PNGs for {@code GET /countries/image}, one per (region, width) variant.
+ * <p>
+ * Variants are rendered from the in-memory column store, all of them in parallel after each refresh,
+ * and kept as encoded bytes in a bounded LRU so serving one is a map lookup. Anything not pre-rendered
+ * (or evicted, or invalidated by a delete) is rendered on first request.
+ * Every width uses the same 1200x600 layout, scaled.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class ImageService {
+	private static final int BASE_WIDTH = 1200, BASE_HEIGHT = 600;
+
+	// Fonts are immutable, so every render shares these
+	private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 36);
+	private static final Font TEXT_FONT = new Font("SansSerif", Font.PLAIN, 18);
+	private static final Font HEADING_FONT = new Font("SansSerif", Font.BOLD, 22);
+	private static final Font ROW_FONT = new Font("Monospaced", Font.PLAIN, 18);
+
+	private final CountryColumnStore countryColumnStore;
 
 	@Value("${app.cache-dir:cache}")
 	private String cacheDir;
 
+	/** Widths served; requests are snapped to the nearest one. */
+	@Value("${app.image.widths:1200,600,300}")
+	private int[] widths;
+
+	@Value("${app.image.cache-size:128}")
+	private int cacheSize;
+
+	/** ImageIO PNG compression quality: 1 stores uncompressed, 0 is maximum deflate. */
+	@Value("${app.image.png-quality:0.75}")
+	private float pngQuality;
+
+	private Map<Variant, byte[]> variants;
+	private ExecutorService renderers;
+	private volatile Instant refreshedAt;
+	// bumped by invalidate() and renderAll(); renders started under an older generation are not cached
+	private final AtomicLong generation = new AtomicLong();
+
+	// ImageWriter is not thread safe but is reusable, so keep one per thread
+	private final ThreadLocal<ImageWriter> pngWriters =
+			ThreadLocal.withInitial(() -> ImageIO.getImageWritersByFormatName("png").next());
+
 	@PostConstruct
 	public void ensureCache() {
 		// ensure headless mode so Graphics works in container environments
 		System.setProperty("java.awt.headless", "true");
 		File d = new File(cacheDir);
 		if (!d.exists()) d.mkdirs();
+
+		Arrays.sort(widths);
+		variants = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Variant, byte[]> eldest) {
+				return size() > cacheSize;
+			}
+		});
+		renderers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread t = new Thread(r, "image-render");
+			t.setDaemon(true);
+			return t;
+		});
 	}
 
-	public void generateSummaryImage(long totalCountries, List<Country> top5, Instant timestamp) throws Exception {
-		// use BufferedImage and Graphics2D only — headless will allow this in containers.
-		int width = 1200, height = 600;
-		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	@PreDestroy
+	public void stop() {
+		renderers.shutdownNow();
+	}
+
+	/**
+	 * @param region region name (case-insensitive), null for all countries
+	 * @param width  requested width in pixels, null for the full size
+	 */
+	public byte[] getSummaryImage(String region, Integer width) {
+		if (width != null && width <= 0) throw new BadRequestException("width must be positive");
+		Variant variant = new Variant(resolveRegion(region), snapWidth(width));
+		byte[] png = variants.get(variant);
+		if (png == null) {
+			// concurrent misses may both render; the results are identical
+			long started = generation.get();
+			png = render(variant, refreshedAt != null ? refreshedAt : Instant.now());
+			synchronized (variants) {
+				if (generation.get() == started) variants.put(variant, png);
+			}
+		}
+		return png;
+	}
+
+	/**
+	 * Render every region x width variant in parallel and replace the cached ones.
+	 * Also writes the full-size global image to {@code <cache-dir>/summary.png}.
+	 */
+	public void renderAll(Instant timestamp) {
+		refreshedAt = timestamp;
+		// also discards on-demand renders of the previous dataset still in flight
+		long started = generation.incrementAndGet();
+		List<Variant> wanted = new ArrayList<>();
+		List<String> regions = new ArrayList<>();
+		regions.add(null);
+		regions.addAll(countryColumnStore.regions());
+		for (String region : regions) {
+			for (int width : widths) {
+				wanted.add(new Variant(region, width));
+			}
+		}
+
+		List<CompletableFuture<byte[]>> futures = wanted.stream()
+				.map(variant -> CompletableFuture.supplyAsync(() -> render(variant, timestamp), renderers))
+				.toList();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+		synchronized (variants) {
+			if (generation.get() != started) {
+				// a delete landed while rendering: these images may still show it, render on demand instead
+				log.debug("Summary images invalidated during rendering, not cached");
+				return;
+			}
+			variants.clear();
+			for (int i = 0; i < wanted.size(); i++) {
+				variants.put(wanted.get(i), futures.get(i).join());
+			}
+		}
+
+		byte[] summary = variants.get(new Variant(null, widths[widths.length - 1]));
+		if (summary != null) {
+			try {
+				Files.write(new File(cacheDir, "summary.png").toPath(), summary);
+			} catch (IOException e) {
+				log.warn("Could not write summary image: {}", e.getMessage());
+			}
+		}
+		log.debug("Rendered {} summary image variants", wanted.size());
+	}
+
+	/**
+	 * Drop cached variants after a change outside a refresh (e.g. a delete); they re-render on demand.
+	 */
+	public void invalidate() {
+		synchronized (variants) {
+			generation.incrementAndGet();
+			variants.clear();
+		}
+	}
+
+	private String resolveRegion(String region) {
+		if (region == null || region.isBlank()) return null;
+		for (String known : countryColumnStore.regions()) {
+			if (known.equalsIgnoreCase(region.trim())) return known;
+		}
+		throw new NotFoundException("Region not found");
+	}
+
+	private int snapWidth(Integer width) {
+		if (width == null) return widths[widths.length - 1];
+		int best = widths[0];
+		for (int candidate : widths) {
+			if (Math.abs(candidate - width) < Math.abs(best - width)) best = candidate;
+		}
+		return best;
+	}
+
+	private byte[] render(Variant variant, Instant timestamp) {
+		long totalCountries = countryColumnStore.count(variant.region());
+		List<CountryMetricsDto> top5 = countryColumnStore.query(CountryQuery.topByGdp(variant.region(), 5));
+
+		int width = variant.width(), height = width * BASE_HEIGHT / BASE_WIDTH;
+		// no alpha channel: smaller raster and cheaper PNG encoding
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 		Graphics2D g = img.createGraphics();
 
 		try {
 			g.setPaint(Color.WHITE);
 			g.fillRect(0, 0, width, height);
 			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			double scale = (double) width / BASE_WIDTH;
+			g.scale(scale, scale);
+
 			g.setPaint(Color.BLACK);
-			g.setFont(new Font("SansSerif", Font.BOLD, 36));
-			g.drawString("Countries Summary", 40, 60);
+			g.setFont(TITLE_FONT);
+			g.drawString(variant.region() == null ? "Countries Summary" : "Countries Summary - " + variant.region(), 40, 60);
 
-			g.setFont(new Font("SansSerif", Font.PLAIN, 18));
+			g.setFont(TEXT_FONT);
 			String ts = DateTimeFormatter.ISO_INSTANT.withZone(ZoneOffset.UTC).format(timestamp);
 			g.drawString("Last refreshed: " + ts, 40, 100);
 			g.drawString("Total countries: " + totalCountries, 40, 130);
 
-			g.setFont(new Font("SansSerif", Font.BOLD, 22));
+			g.setFont(HEADING_FONT);
 			g.drawString("Top 5 countries by estimated GDP", 40, 180);
 
-			g.setFont(new Font("Monospaced", Font.PLAIN, 18));
+			g.setFont(ROW_FONT);
 			NumberFormat nf = NumberFormat.getInstance();
 			int y = 210;
 			int i = 1;
-			for (Country c : top5) {
+			for (CountryMetricsDto c : top5) {
 				String name = c.getName() == null ? "N/A" : c.getName();
 				Double gdp = c.getEstimatedGdp();
 				String gdpStr = (gdp == null) ? "N/A" : nf.format(Math.round(gdp * 100.0) / 100.0);
@@ -66,7 +246,31 @@ public class ImageService {
 			g.dispose();
 		}
 
-		File out = new File(cacheDir, "summary.png");
-		ImageIO.write(img, "png", out);
+		return encode(img);
+	}
+
+	private byte[] encode(BufferedImage img) {
+		ImageWriter writer = pngWriters.get();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		if (param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(pngQuality);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+		try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(img, null, null), param);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writer.setOutput(null);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @param region canonical region name, null for all countries
+	 */
+	private record Variant(String region, int width) {
 	}
 }
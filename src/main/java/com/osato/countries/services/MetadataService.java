@@ -0,0 +1,72 @@
+package com.osato.countries.services;
+
+import com.osato.countries.models.entities.Metadata;
+import com.osato.countries.repositories.MetadataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Small key/value access over the {@code metadata} table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MetadataService {
+	/** Seed of the last refresh; replaying it reproduces the estimated GDP values. */
+	public static final String LAST_REFRESH_SEED = "last_refresh_seed";
+	/** Incremented whenever the countries table changes (refresh with changes, delete). */
+	public static final String DATASET_VERSION = "dataset_version";
+
+	private final MetadataRepository metadataRepository;
+
+	public Optional<String> get(String key) {
+		return metadataRepository.findById(key).map(Metadata::getValueText);
+	}
+
+	public long getDatasetVersion() {
+		String value = metadataRepository.findValueText(DATASET_VERSION);
+		return value == null ? 0L : Long.parseLong(value);
+	}
+
+	/**
+	 * Create the version row up front, so increments always have a row to update.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initDatasetVersion() {
+		try {
+			if (get(DATASET_VERSION).isEmpty()) put(DATASET_VERSION, "0");
+		} catch (Exception e) {
+			log.warn("Could not initialize dataset version: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Increment with a single UPDATE (joins the caller's transaction), so a delete and a refresh
+	 * committing at the same time never get the same version.
+	 */
+	@Transactional
+	public long nextDatasetVersion() {
+		if (metadataRepository.increment(DATASET_VERSION) == 0) {
+			// row not created yet (see initDatasetVersion)
+			put(DATASET_VERSION, "1");
+			return 1;
+		}
+		return Long.parseLong(metadataRepository.findValueText(DATASET_VERSION));
+	}
+
+	public void put(String key, String value) {
+		Metadata metadata = metadataRepository.findById(key).orElseGet(() -> {
+			Metadata created = new Metadata();
+			created.setKeyName(key);
+			return created;
+		});
+		metadata.setValueText(value);
+		metadataRepository.save(metadata);
+	}
+}
@@ -0,0 +1,238 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.models.dtos.CountryMetricsDto;
+import com.osato.countries.models.entities.Country;
+import com.osato.countries.repositories.CountryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory columnar copy of the countries table for numeric range + top-K queries.
+ * Built at startup and after every refresh, updated on delete. Queries run against an
+ * immutable snapshot: primitive scans and a primitive heap, no entity loading, no boxing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountryColumnStore {
+	private final CountryRepository countryRepository;
+
+	private volatile CountryColumns columns = CountryColumns.EMPTY;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		try {
+			rebuild(countryRepository.findAll());
+		} catch (Exception e) {
+			log.warn("Could not build country column store: {}", e.getMessage());
+		}
+	}
+
+	public void rebuild(List<Country> countries) {
+		CountryColumns next = new CountryColumns(countries);
+		// publish under the same lock as remove, so a concurrent delete can't write back a pre-refresh snapshot
+		synchronized (this) {
+			columns = next;
+		}
+		log.debug("Country column store rebuilt with {} rows", countries.size());
+	}
+
+	public synchronized void remove(String nameNormalized) {
+		columns = columns.without(nameNormalized);
+	}
+
+	/**
+	 * Regions present in the current snapshot, as first seen (original case).
+	 */
+	public List<String> regions() {
+		return List.of(columns.regionDict);
+	}
+
+	/**
+	 * Live rows, optionally restricted to a region (case-insensitive).
+	 */
+	public long count(String region) {
+		CountryColumns cols = columns;
+		int regionCode = region == null ? -1 : CountryColumns.code(cols.regionCodes, region);
+		if (regionCode == -2) return 0;
+		long count = 0;
+		for (int row = 0; row < cols.size; row++) {
+			if (!cols.removed.get(row) && (regionCode == -1 || cols.region[row] == regionCode)) count++;
+		}
+		return count;
+	}
+
+	public List<CountryMetricsDto> query(CountryQuery query) {
+		CountryColumns cols = columns;
+
+		int regionCode = query.getRegion() == null ? -1 : CountryColumns.code(cols.regionCodes, query.getRegion());
+		int currencyCode = query.getCurrency() == null ? -1 : CountryColumns.code(cols.currencyCodes, query.getCurrency());
+		if (regionCode == -2 || currencyCode == -2) return List.of();
+
+		// drive the scan from the range filter with the fewest candidate rows
+		int[] candidates = null;
+		int from = 0, to = cols.size;
+		for (Metric metric : Metric.values()) {
+			double min = query.min(metric), max = query.max(metric);
+			if (Double.isNaN(min) && Double.isNaN(max)) continue;
+			double[] keys = cols.sortedKeys[metric.ordinal()];
+			int lo = Double.isNaN(min) ? 0 : lowerBound(keys, min);
+			int hi = Double.isNaN(max) ? keys.length : upperBound(keys, max);
+			if (candidates == null || hi - lo < to - from) {
+				candidates = cols.sortedRows[metric.ordinal()];
+				from = lo;
+				to = Math.max(lo, hi);
+			}
+		}
+
+		Metric sortBy = query.getSortBy();
+		TopK top = new TopK(query.getLimit(), query.isDescending());
+		for (int i = from; i < to; i++) {
+			int row = candidates == null ? i : candidates[i];
+			if (cols.removed.get(row)) continue;
+			if (regionCode != -1 && cols.region[row] != regionCode) continue;
+			if (currencyCode != -1 && cols.currency[row] != currencyCode) continue;
+			if (!inRanges(cols, query, row)) continue;
+			double key = cols.value(sortBy, row);
+			if (!Double.isNaN(key)) top.offer(row, key);
+		}
+
+		int[] rows = top.drainSorted();
+		List<CountryMetricsDto> result = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			result.add(toDto(cols, row));
+		}
+		return result;
+	}
+
+	private static boolean inRanges(CountryColumns cols, CountryQuery query, int row) {
+		for (Metric metric : Metric.values()) {
+			double min = query.min(metric), max = query.max(metric);
+			if (Double.isNaN(min) && Double.isNaN(max)) continue;
+			double value = cols.value(metric, row);
+			// NaN (unknown) never satisfies a range
+			if (!(Double.isNaN(min) || value >= min)) return false;
+			if (!(Double.isNaN(max) || value <= max)) return false;
+		}
+		return true;
+	}
+
+	/** First index with keys[i] >= value. */
+	private static int lowerBound(double[] keys, double value) {
+		int lo = 0, hi = keys.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid] < value) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	/** First index with keys[i] > value. */
+	private static int upperBound(double[] keys, double value) {
+		int lo = 0, hi = keys.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid] <= value) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	private static CountryMetricsDto toDto(CountryColumns cols, int row) {
+		return CountryMetricsDto.builder()
+								.name(cols.names[row])
+								.region(cols.region[row] < 0 ? null : cols.regionDict[cols.region[row]])
+								.currencyCode(cols.currency[row] < 0 ? null : cols.currencyDict[cols.currency[row]])
+								.population(cols.population[row])
+								.exchangeRate(nullable(cols.exchangeRate[row]))
+								.estimatedGdp(nullable(cols.estimatedGdp[row]))
+								.gdpPerCapita(nullable(cols.gdpPerCapita[row]))
+								.build();
+	}
+
+	private static Double nullable(double value) {
+		return Double.isNaN(value) ? null : value;
+	}
+
+	/**
+	 * Bounded binary heap of (row, key) in parallel primitive arrays. The root is the weakest
+	 * kept entry (smallest key for descending order, largest for ascending), so each offer is O(log k).
+	 */
+	private static final class TopK {
+		private final int[] rows;
+		private final double[] keys;
+		private final boolean descending;
+		private int size;
+
+		TopK(int capacity, boolean descending) {
+			this.rows = new int[capacity];
+			this.keys = new double[capacity];
+			this.descending = descending;
+		}
+
+		void offer(int row, double key) {
+			if (size < rows.length) {
+				rows[size] = row;
+				keys[size] = key;
+				siftUp(size++);
+			} else if (better(key, keys[0])) {
+				rows[0] = row;
+				keys[0] = key;
+				siftDown(0);
+			}
+		}
+
+		/** Rows best first; empties the heap. */
+		int[] drainSorted() {
+			int[] sorted = new int[size];
+			for (int i = size - 1; i >= 0; i--) {
+				sorted[i] = rows[0];
+				size--;
+				rows[0] = rows[size];
+				keys[0] = keys[size];
+				siftDown(0);
+			}
+			return sorted;
+		}
+
+		private boolean better(double a, double b) {
+			return descending ? a > b : a < b;
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!better(keys[parent], keys[i])) break;
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while (true) {
+				int left = 2 * i + 1, right = left + 1, weakest = i;
+				if (left < size && better(keys[weakest], keys[left])) weakest = left;
+				if (right < size && better(keys[weakest], keys[right])) weakest = right;
+				if (weakest == i) return;
+				swap(i, weakest);
+				i = weakest;
+			}
+		}
+
+		private void swap(int a, int b) {
+			int row = rows[a];
+			rows[a] = rows[b];
+			rows[b] = row;
+			double key = keys[a];
+			keys[a] = keys[b];
+			keys[b] = key;
+		}
+	}
+}
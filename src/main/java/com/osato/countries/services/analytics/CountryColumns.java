@@ -0,0 +1,151 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.models.entities.Country;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable column-oriented snapshot of the countries table.
+ * - numeric columns are primitive arrays, missing values are NaN
+ * - region and currency are dictionary encoded (-1 = none)
+ * - every metric has a permutation of the rows sorted ascending by it (rows with NaN left out),
+ *   with the keys alongside for binary search
+ * Deletes produce a copy with the row marked in {@code removed}; everything else is shared.
+ */
+final class CountryColumns {
+	static final CountryColumns EMPTY = new CountryColumns(List.of());
+
+	final int size;
+	final String[] names;
+	final String[] namesNormalized;
+	final long[] population;
+	final double[] exchangeRate;
+	final double[] estimatedGdp;
+	final double[] gdpPerCapita;
+
+	final int[] region;
+	final String[] regionDict;
+	final Map<String, Integer> regionCodes;
+	final int[] currency;
+	final String[] currencyDict;
+	final Map<String, Integer> currencyCodes;
+
+	final int[][] sortedRows;
+	final double[][] sortedKeys;
+
+	final BitSet removed;
+
+	CountryColumns(List<Country> countries) {
+		size = countries.size();
+		names = new String[size];
+		namesNormalized = new String[size];
+		population = new long[size];
+		exchangeRate = new double[size];
+		estimatedGdp = new double[size];
+		gdpPerCapita = new double[size];
+		region = new int[size];
+		currency = new int[size];
+
+		Dictionary regions = new Dictionary();
+		Dictionary currencies = new Dictionary();
+		for (int row = 0; row < size; row++) {
+			Country c = countries.get(row);
+			names[row] = c.getName();
+			namesNormalized[row] = c.getNameNormalized();
+			population[row] = c.getPopulation() == null ? 0L : c.getPopulation();
+			exchangeRate[row] = c.getExchangeRate() == null ? Double.NaN : c.getExchangeRate();
+			estimatedGdp[row] = c.getEstimatedGdp() == null ? Double.NaN : c.getEstimatedGdp();
+			gdpPerCapita[row] = population[row] > 0 ? estimatedGdp[row] / population[row] : Double.NaN;
+			region[row] = regions.encode(c.getRegion());
+			currency[row] = currencies.encode(c.getCurrencyCode());
+		}
+		regionDict = regions.values.toArray(new String[0]);
+		regionCodes = regions.codes;
+		currencyDict = currencies.values.toArray(new String[0]);
+		currencyCodes = currencies.codes;
+
+		int metrics = Metric.values().length;
+		sortedRows = new int[metrics][];
+		sortedKeys = new double[metrics][];
+		for (Metric metric : Metric.values()) {
+			// runs once per refresh, so the boxed sort is fine here; queries never box
+			int[] rows = IntStream.range(0, size)
+								  .filter(row -> !Double.isNaN(value(metric, row)))
+								  .boxed()
+								  .sorted(Comparator.comparingDouble(row -> value(metric, row)))
+								  .mapToInt(Integer::intValue)
+								  .toArray();
+			double[] keys = new double[rows.length];
+			for (int i = 0; i < rows.length; i++) {
+				keys[i] = value(metric, rows[i]);
+			}
+			sortedRows[metric.ordinal()] = rows;
+			sortedKeys[metric.ordinal()] = keys;
+		}
+		removed = new BitSet(size);
+	}
+
+	private CountryColumns(CountryColumns source, BitSet removed) {
+		size = source.size;
+		names = source.names;
+		namesNormalized = source.namesNormalized;
+		population = source.population;
+		exchangeRate = source.exchangeRate;
+		estimatedGdp = source.estimatedGdp;
+		gdpPerCapita = source.gdpPerCapita;
+		region = source.region;
+		regionDict = source.regionDict;
+		regionCodes = source.regionCodes;
+		currency = source.currency;
+		currencyDict = source.currencyDict;
+		currencyCodes = source.currencyCodes;
+		sortedRows = source.sortedRows;
+		sortedKeys = source.sortedKeys;
+		this.removed = removed;
+	}
+
+	double value(Metric metric, int row) {
+		return switch (metric) {
+			case POPULATION -> population[row];
+			case EXCHANGE_RATE -> exchangeRate[row];
+			case ESTIMATED_GDP -> estimatedGdp[row];
+			case GDP_PER_CAPITA -> gdpPerCapita[row];
+		};
+	}
+
+	/**
+	 * Dictionary code of a region or currency, case-insensitive; -2 when it never occurs.
+	 */
+	static int code(Map<String, Integer> codes, String value) {
+		Integer code = codes.get(value.toLowerCase(Locale.ROOT));
+		return code == null ? -2 : code;
+	}
+
+	CountryColumns without(String nameNormalized) {
+		BitSet next = (BitSet) removed.clone();
+		for (int row = 0; row < size; row++) {
+			if (nameNormalized.equals(namesNormalized[row])) next.set(row);
+		}
+		return new CountryColumns(this, next);
+	}
+
+	private static final class Dictionary {
+		final List<String> values = new ArrayList<>();
+		final Map<String, Integer> codes = new HashMap<>();
+
+		int encode(String value) {
+			if (value == null) return -1;
+			return codes.computeIfAbsent(value.toLowerCase(Locale.ROOT), k -> {
+				values.add(value);
+				return values.size() - 1;
+			});
+		}
+	}
+}
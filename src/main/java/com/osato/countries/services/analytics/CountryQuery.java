@@ -0,0 +1,104 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.config.BadRequestException;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Parsed {@code GET /countries/query} parameters:
+ * - min_&lt;metric&gt; / max_&lt;metric&gt; inclusive ranges, e.g. min_population, max_gdp_per_capita;
+ *   any other min_/max_ key is rejected
+ * - region, currency: exact match, case-insensitive
+ * - sort_by (a metric, default estimated_gdp), order (asc|desc, default desc), limit (default 20)
+ * Unset bounds are NaN.
+ */
+@Getter
+public class CountryQuery {
+	public static final int DEFAULT_LIMIT = 20;
+	public static final int MAX_LIMIT = 1000;
+
+	private final double[] min = new double[Metric.values().length];
+	private final double[] max = new double[Metric.values().length];
+	private String region;
+	private String currency;
+	private Metric sortBy = Metric.ESTIMATED_GDP;
+	private boolean descending = true;
+	private int limit = DEFAULT_LIMIT;
+
+	private CountryQuery() {
+		Arrays.fill(min, Double.NaN);
+		Arrays.fill(max, Double.NaN);
+	}
+
+	/**
+	 * Top {@code limit} countries by estimated GDP, optionally within a region.
+	 */
+	public static CountryQuery topByGdp(String region, int limit) {
+		CountryQuery query = new CountryQuery();
+		query.region = region;
+		query.limit = limit;
+		return query;
+	}
+
+	/**
+	 * @throws BadRequestException for malformed values and for min_/max_ keys that name no metric,
+	 *                             so a typo is not answered with unfiltered results
+	 */
+	public static CountryQuery from(Map<String, String> params) {
+		for (String key : params.keySet()) {
+			if (key.startsWith("min_") || key.startsWith("max_")) {
+				String metric = key.substring(4);
+				if (Arrays.stream(Metric.values()).noneMatch(m -> m.getParam().equals(metric))) {
+					throw new BadRequestException("Unknown range parameter: " + key);
+				}
+			}
+		}
+		CountryQuery query = new CountryQuery();
+		for (Metric metric : Metric.values()) {
+			query.min[metric.ordinal()] = parseDouble(params, "min_" + metric.getParam());
+			query.max[metric.ordinal()] = parseDouble(params, "max_" + metric.getParam());
+		}
+		query.region = params.get("region");
+		query.currency = params.get("currency");
+		if (params.get("sort_by") != null) {
+			query.sortBy = Metric.fromParam(params.get("sort_by"));
+		}
+		if (params.get("order") != null) {
+			switch (params.get("order").toLowerCase()) {
+				case "asc" -> query.descending = false;
+				case "desc" -> query.descending = true;
+				default -> throw new BadRequestException("order must be asc or desc");
+			}
+		}
+		if (params.get("limit") != null) {
+			double limit = parseDouble(params, "limit");
+			if (limit < 1 || limit > MAX_LIMIT || limit != Math.floor(limit)) {
+				throw new BadRequestException("limit must be an integer between 1 and " + MAX_LIMIT);
+			}
+			query.limit = (int) limit;
+		}
+		return query;
+	}
+
+	public double min(Metric metric) {
+		return min[metric.ordinal()];
+	}
+
+	public double max(Metric metric) {
+		return max[metric.ordinal()];
+	}
+
+	private static double parseDouble(Map<String, String> params, String name) {
+		String value = params.get(name);
+		if (value == null || value.isBlank()) return Double.NaN;
+		try {
+			double parsed = Double.parseDouble(value.trim());
+			if (Double.isNaN(parsed)) throw new NumberFormatException();
+			return parsed;
+		} catch (NumberFormatException e) {
+			throw new BadRequestException(name + " must be a number");
+		}
+	}
+}
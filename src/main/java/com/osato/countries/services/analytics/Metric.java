@@ -0,0 +1,27 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.config.BadRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Numeric columns that can be range-filtered and ranked in {@code GET /countries/query}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Metric {
+	POPULATION("population"),
+	EXCHANGE_RATE("exchange_rate"),
+	ESTIMATED_GDP("estimated_gdp"),
+	/** Derived: estimated_gdp / population. */
+	GDP_PER_CAPITA("gdp_per_capita");
+
+	private final String param;
+
+	public static Metric fromParam(String param) {
+		for (Metric metric : values()) {
+			if (metric.param.equalsIgnoreCase(param)) return metric;
+		}
+		throw new BadRequestException("Unknown metric: " + param);
+	}
+}
@@ -0,0 +1,12 @@
+package com.osato.countries.services.changes;
+
+import com.osato.countries.models.dtos.CountryChangeEvent;
+
+import java.util.List;
+
+/**
+ * Application event: the deltas that produced dataset {@code version}.
+ * Published inside the writing transaction and delivered to subscribers after it commits.
+ */
+public record CountryChangeBatch(long version, List<CountryChangeEvent> changes) {
+}
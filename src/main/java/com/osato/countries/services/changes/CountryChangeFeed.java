@@ -0,0 +1,288 @@
+package com.osato.countries.services.changes;
+
+import com.osato.countries.models.dtos.CountryChangeEvent;
+import com.osato.countries.services.MetadataService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events feed of country changes for {@code GET /countries/changes}.
+ * <p>
+ * Every delta gets a sequential event id and is kept in a bounded ring buffer, so a client
+ * reconnecting with {@code Last-Event-ID} gets what it missed. If that id has already been
+ * evicted (or is from before a restart) it gets a {@code reset} event and should reload /countries.
+ * Ids are {@code <epoch>-<seq>}: the sequence restarts with the process, the epoch tells runs apart.
+ * <p>
+ * Connections are async servlet requests, not threads. One dispatcher thread fans events out into a
+ * bounded queue per subscriber and never writes to a socket itself; each queue is drained by its own
+ * virtual thread, so a client that stops reading only stalls itself. When a subscriber's queue is full
+ * it gets a {@code reset} and is disconnected, and resumes (or reloads) with {@code Last-Event-ID}.
+ * <p>
+ * Event names: {@code upsert} / {@code delete} (a {@link CountryChangeEvent}),
+ * {@code version} (end of a batch, {"version": n}) and {@code reset}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountryChangeFeed {
+	private final MetadataService metadataService;
+
+	@Value("${app.changes.buffer-size:4096}")
+	private int bufferSize;
+
+	@Value("${app.changes.timeout-ms:1800000}")
+	private long timeoutMs;
+
+	@Value("${app.changes.heartbeat-ms:25000}")
+	private long heartbeatMs;
+
+	/** Events a subscriber may fall behind by before it is reset. */
+	@Value("${app.changes.subscriber-queue:1024}")
+	private int subscriberQueue;
+
+	private static final Entry KEEPALIVE = new Entry(0, null, null);
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "country-changes");
+		t.setDaemon(true);
+		return t;
+	});
+	private final ExecutorService writers =
+			Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("country-changes-writer-", 0).factory());
+
+	// ring buffer, guarded by this
+	private Entry[] ring;
+	private long lastId;
+	private volatile long datasetVersion;
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	@PostConstruct
+	public synchronized void start() {
+		ring = new Entry[bufferSize];
+		dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadVersion() {
+		try {
+			datasetVersion = metadataService.getDatasetVersion();
+		} catch (Exception e) {
+			log.warn("Could not read dataset version: {}", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		dispatcher.shutdownNow();
+		writers.shutdownNow();
+		subscribers.forEach(s -> s.emitter.complete());
+	}
+
+	public SseEmitter subscribe(String lastEventId) {
+		return subscribe(lastEventId, new SseEmitter(timeoutMs));
+	}
+
+	SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+		Subscriber subscriber;
+
+		synchronized (this) {
+			subscriber = new Subscriber(emitter, lastId, new LinkedBlockingQueue<>(subscriberQueue));
+			List<Entry> replay = new ArrayList<>();
+			boolean reset = false;
+			Long resumeFrom = parseId(lastEventId);
+			if (resumeFrom != null && resumeFrom < lastId) {
+				long oldest = Math.max(1, lastId - ring.length + 1);
+				if (resumeFrom + 1 < oldest || lastId - resumeFrom > subscriberQueue) {
+					reset = true;
+				} else {
+					for (long id = resumeFrom + 1; id <= lastId; id++) {
+						replay.add(ring[(int) (id % ring.length)]);
+					}
+				}
+			} else if (resumeFrom != null && resumeFrom > lastId) {
+				reset = true; // not an id of this run
+			}
+
+			subscribers.add(subscriber);
+			boolean sendReset = reset;
+			// queued under the lock so it runs before any broadcast appended after registration
+			dispatcher.execute(() -> {
+				if (sendReset) {
+					subscriber.queue.offer(new Entry(subscriber.registeredAfter, "reset", Map.of("version", datasetVersion)));
+				}
+				subscriber.queue.addAll(replay);
+				schedule(subscriber);
+			});
+		}
+
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> {
+			subscribers.remove(subscriber);
+			emitter.complete();
+		});
+		emitter.onError(e -> subscribers.remove(subscriber));
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void publish(CountryChangeBatch batch) {
+		datasetVersion = batch.version();
+		synchronized (this) {
+			List<Entry> entries = new ArrayList<>(batch.changes().size() + 1);
+			for (CountryChangeEvent change : batch.changes()) {
+				entries.add(append(change.getType(), change));
+			}
+			entries.add(append("version", Map.of("version", batch.version())));
+			dispatcher.execute(() -> broadcast(entries));
+		}
+	}
+
+	private Entry append(String name, Object data) {
+		Entry entry = new Entry(++lastId, name, data);
+		ring[(int) (entry.id % ring.length)] = entry;
+		return entry;
+	}
+
+	private void broadcast(List<Entry> entries) {
+		for (Subscriber subscriber : subscribers) {
+			for (Entry entry : entries) {
+				if (entry.id > subscriber.registeredAfter && !subscriber.queue.offer(entry)) {
+					overflow(subscriber, entry);
+					break;
+				}
+			}
+			schedule(subscriber);
+		}
+	}
+
+	private void heartbeat() {
+		for (Subscriber subscriber : subscribers) {
+			// only idle connections need one
+			if (subscriber.queue.isEmpty() && subscriber.queue.offer(KEEPALIVE)) schedule(subscriber);
+		}
+	}
+
+	/**
+	 * The subscriber stopped keeping up: discard what it has not received, queue a reset and
+	 * disconnect it once that is written. The reset carries the id before the first discarded
+	 * event, so a reconnect replays from there if the ring still has it.
+	 */
+	private void overflow(Subscriber subscriber, Entry missed) {
+		subscribers.remove(subscriber);
+		Entry firstDiscarded = subscriber.queue.peek();
+		long resumeAfter = (firstDiscarded != null && firstDiscarded != KEEPALIVE ? firstDiscarded.id : missed.id) - 1;
+		subscriber.queue.clear();
+		Entry reset = new Entry(resumeAfter, "reset", Map.of("version", datasetVersion));
+		subscriber.last = reset;
+		subscriber.queue.offer(reset);
+		log.debug("Change feed subscriber fell {} events behind, resetting it", subscriberQueue);
+	}
+
+	/**
+	 * Start a writer for the subscriber's queue unless one is running; at most one per subscriber,
+	 * which keeps its events in order.
+	 */
+	private void schedule(Subscriber subscriber) {
+		if (subscriber.writing.compareAndSet(false, true)) {
+			writers.execute(() -> drain(subscriber));
+		}
+	}
+
+	private void drain(Subscriber subscriber) {
+		while (true) {
+			Entry entry;
+			while ((entry = subscriber.queue.poll()) != null) {
+				// on failure or after the final reset, writing stays claimed: nothing more is sent
+				if (!send(subscriber, entry)) return;
+				if (entry == subscriber.last) {
+					subscriber.emitter.complete();
+					return;
+				}
+			}
+			subscriber.writing.set(false);
+			// an offer may have landed between the last poll and the release
+			if (subscriber.queue.isEmpty() || !subscriber.writing.compareAndSet(false, true)) return;
+		}
+	}
+
+	private boolean send(Subscriber subscriber, Entry entry) {
+		try {
+			if (entry == KEEPALIVE) {
+				subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+			} else {
+				subscriber.emitter.send(SseEmitter.event()
+												  .id(epoch + "-" + entry.id)
+												  .name(entry.name)
+												  .data(entry.data, MediaType.APPLICATION_JSON));
+			}
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			drop(subscriber);
+			return false;
+		}
+	}
+
+	private void drop(Subscriber subscriber) {
+		subscribers.remove(subscriber);
+		subscriber.queue.clear();
+		subscriber.emitter.completeWithError(new IOException("Subscriber gone"));
+	}
+
+	/**
+	 * Sequence number of an id from this run; Long.MAX_VALUE (forcing a reset) for anything else.
+	 */
+	private Long parseId(String id) {
+		if (id == null || id.isBlank()) return null;
+		String[] parts = id.trim().split("-", 2);
+		if (parts.length != 2 || !parts[0].equals(epoch)) return Long.MAX_VALUE; // previous run or unknown format
+		try {
+			return Long.parseLong(parts[1]);
+		} catch (NumberFormatException e) {
+			return Long.MAX_VALUE;
+		}
+	}
+
+	private record Entry(long id, String name, Object data) {
+	}
+
+	private static final class Subscriber {
+		private final SseEmitter emitter;
+		/** Last event id when the subscriber joined; later ids arrive by broadcast. */
+		private final long registeredAfter;
+		private final BlockingQueue<Entry> queue;
+		/** Set while a writer drains the queue. */
+		private final AtomicBoolean writing = new AtomicBoolean();
+		/** Overflow reset; the connection is closed once it is written. */
+		private volatile Entry last;
+
+		Subscriber(SseEmitter emitter, long registeredAfter, BlockingQueue<Entry> queue) {
+			this.emitter = emitter;
+			this.registeredAfter = registeredAfter;
+			this.queue = queue;
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.osato.countries.services.sources;
+
+import java.util.List;
+
+/**
+ * A place country records come from (an HTTP API, a local dataset, ...).
+ * Implementations decode their payload into {@link RawCountry} and throw
+ * {@link com.osato.countries.config.ExternalApiException} when the data can't be loaded.
+ */
+public interface CountrySource {
+	/** Name used in logs and in 503 responses. */
+	String name();
+
+	List<RawCountry> fetch();
+}
@@ -0,0 +1,40 @@
+package com.osato.countries.services.sources;
+
+import com.osato.countries.models.dtos.CountryField;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code app.sources[n].*}: country sources in priority order.
+ * The first source defines which countries exist; later ones only fill in their {@code fields}
+ * for countries with the same name. With no sources configured, {@code app.countries-api} is used.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app")
+public class CountrySourceProperties {
+	private List<Source> sources = new ArrayList<>();
+
+	@Getter
+	@Setter
+	public static class Source {
+		private Type type = Type.HTTP;
+		/** Display name, defaults to the location. */
+		private String name;
+		/** URL for http, file path for file. */
+		private String location;
+		/** Fields this source contributes when merged (capital, region, population, flag_url, currency_code); empty = all. */
+		private Set<CountryField> fields = new LinkedHashSet<>();
+	}
+
+	public enum Type {
+		HTTP,
+		FILE
+	}
+}
@@ -0,0 +1,89 @@
+package com.osato.countries.services.sources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osato.countries.models.dtos.CountryField;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the configured {@link CountrySource}s and merges their records by normalized name.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CountrySources {
+	private static final Set<CountryField> MERGEABLE = EnumSet.of(
+			CountryField.CAPITAL, CountryField.REGION, CountryField.POPULATION,
+			CountryField.FLAG_URL, CountryField.CURRENCY_CODE);
+
+	private final CountrySourceProperties properties;
+	private final RestTemplate restTemplate;
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.countries-api:https://restcountries.com/v2/all?fields=name,capital,region,population,flag,currencies}")
+	private String COUNTRIES_API;
+
+	private final List<ConfiguredSource> sources = new ArrayList<>();
+
+	@PostConstruct
+	public void init() {
+		if (properties.getSources().isEmpty()) {
+			sources.add(new ConfiguredSource(new HttpCountrySource("Countries API", COUNTRIES_API, restTemplate), MERGEABLE));
+		}
+		for (CountrySourceProperties.Source config : properties.getSources()) {
+			String name = config.getName() != null ? config.getName() : config.getLocation();
+			CountrySource source = switch (config.getType()) {
+				case HTTP -> new HttpCountrySource(name, config.getLocation(), restTemplate);
+				case FILE -> new FileCountrySource(name, Path.of(config.getLocation()), objectMapper);
+			};
+			Set<CountryField> fields = EnumSet.copyOf(MERGEABLE);
+			if (!config.getFields().isEmpty()) fields.retainAll(config.getFields());
+			sources.add(new ConfiguredSource(source, fields));
+		}
+		log.info("Country sources: {}", sources.stream().map(s -> s.source().name()).toList());
+	}
+
+	/**
+	 * Fetch every source. The first source's records are returned, overlaid with the configured
+	 * fields of any later source that has a record of the same name.
+	 */
+	public List<RawCountry> fetchAll() {
+		List<RawCountry> primary = sources.getFirst().source().fetch();
+		if (sources.size() == 1) return primary;
+
+		Map<String, RawCountry> merged = new LinkedHashMap<>(primary.size() * 2);
+		for (RawCountry country : primary) {
+			String key = country.nameNormalized();
+			if (key != null) merged.put(key, country);
+		}
+		for (ConfiguredSource secondary : sources.subList(1, sources.size())) {
+			int matched = 0;
+			for (RawCountry country : secondary.source().fetch()) {
+				String key = country.nameNormalized();
+				if (key == null) continue;
+				RawCountry base = merged.get(key);
+				if (base != null) {
+					merged.put(key, base.overlay(country, secondary.fields()));
+					matched++;
+				}
+			}
+			log.info("Merged {} {} into {} countries", secondary.fields(), secondary.source().name(), matched);
+		}
+		return new ArrayList<>(merged.values());
+	}
+
+	private record ConfiguredSource(CountrySource source, Set<CountryField> fields) {
+	}
+}
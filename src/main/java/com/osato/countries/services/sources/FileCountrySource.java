@@ -0,0 +1,40 @@
+package com.osato.countries.services.sources;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osato.countries.config.ExternalApiException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Countries from a local dataset, either a JSON array or NDJSON (one object per line),
+ * in the v2 or v3 layout. Meant for bulk/offline data that should not depend on the public APIs.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FileCountrySource implements CountrySource {
+	private final String name;
+	private final Path path;
+	private final ObjectMapper objectMapper;
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public List<RawCountry> fetch() {
+		// readValues iterates root-level values (NDJSON) and unwraps a root array (JSON) alike
+		try (MappingIterator<Map<String, Object>> records = objectMapper.readerForMapOf(Object.class).readValues(path.toFile())) {
+			return PayloadShape.decodeAll(records.readAll(), name);
+		} catch (IOException e) {
+			log.error("Failed to read {} from {}: {}", name, path, e.getMessage(), e);
+			throw new ExternalApiException(name);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.osato.countries.services.sources;
+
+import com.osato.countries.config.ExternalApiException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Countries from a restcountries-style HTTP endpoint returning a JSON array (v2 or v3 layout).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class HttpCountrySource implements CountrySource {
+	private final String name;
+	private final String url;
+	private final RestTemplate restTemplate;
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public List<RawCountry> fetch() {
+		Object[] body;
+		try {
+			ResponseEntity<Object[]> response = restTemplate.getForEntity(url, Object[].class);
+			body = response.getBody();
+		} catch (RestClientException e) {
+			log.error("Failed to fetch {}: {}", name, e.getMessage(), e);
+			throw new ExternalApiException(name);
+		}
+		if (body == null || body.length == 0) {
+			throw new RuntimeException("Countries not found: " + name);
+		}
+		return PayloadShape.decodeAll(Arrays.asList(body), name);
+	}
+}
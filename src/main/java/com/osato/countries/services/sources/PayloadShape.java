@@ -0,0 +1,184 @@
+package com.osato.countries.services.sources;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Record layouts served by restcountries-style APIs. A payload is inspected once
+ * ({@link #detect}) and every record in it goes through that shape's decoder, instead of
+ * probing each field of each record for both layouts.
+ */
+@Slf4j
+public enum PayloadShape {
+	/**
+	 * v2: {@code name} and {@code capital} are strings, {@code flag} is a URL,
+	 * {@code currencies} is a list of {@code {code, name, symbol}}.
+	 */
+	V2 {
+		@Override
+		@SuppressWarnings("unchecked")
+		public RawCountry decode(Map<String, Object> data) {
+			List<Map<String, Object>> currencies = (List<Map<String, Object>>) data.get("currencies");
+			Object code = currencies == null || currencies.isEmpty() ? null : currencies.getFirst().get("code");
+			return RawCountry.builder()
+							 .name((String) data.get("name"))
+							 .capital((String) data.get("capital"))
+							 .region((String) data.get("region"))
+							 .population(toLong((Number) data.get("population")))
+							 .flagUrl((String) data.get("flag"))
+							 .currencyCode((String) code)
+							 .build();
+		}
+	},
+
+	/**
+	 * v3: {@code name} is {@code {common, official}}, {@code capital} is a list, {@code flags} is
+	 * {@code {svg, png}}, {@code currencies} is a map keyed by currency code.
+	 */
+	V3 {
+		@Override
+		@SuppressWarnings("unchecked")
+		public RawCountry decode(Map<String, Object> data) {
+			Map<String, Object> names = (Map<String, Object>) data.get("name");
+			String name = (String) names.get("common");
+			if (name == null) name = (String) names.get("official");
+
+			List<String> capitals = (List<String>) data.get("capital");
+			Map<String, Object> flags = (Map<String, Object>) data.get("flags");
+			Map<String, Object> currencies = (Map<String, Object>) data.get("currencies");
+
+			return RawCountry.builder()
+							 .name(name)
+							 .capital(capitals == null || capitals.isEmpty() ? null : capitals.getFirst())
+							 .region((String) data.get("region"))
+							 .population(toLong((Number) data.get("population")))
+							 .flagUrl(flags == null ? null : (String) (flags.get("svg") != null ? flags.get("svg") : flags.get("png")))
+							 .currencyCode(currencies == null || currencies.isEmpty() ? null : currencies.keySet().iterator().next())
+							 .build();
+		}
+	};
+
+	public abstract RawCountry decode(Map<String, Object> data);
+
+	public static PayloadShape detect(Map<String, Object> sample) {
+		return sample.get("name") instanceof Map ? V3 : V2;
+	}
+
+	/**
+	 * Detect the shape from the first record, then decode all records (in parallel) with it.
+	 * Records whose fields don't have the detected shape's types are decoded leniently instead;
+	 * records that are not objects or can't be decoded at all are logged and skipped.
+	 */
+	public static List<RawCountry> decodeAll(List<?> records, String sourceName) {
+		Map<String, Object> sample = records.stream()
+											.filter(Map.class::isInstance)
+											.map(PayloadShape::asMap)
+											.findFirst()
+											.orElse(null);
+		if (sample == null) {
+			log.warn("{} returned no country records", sourceName);
+			return List.of();
+		}
+		PayloadShape shape = detect(sample);
+		log.debug("{} payload detected as {}", sourceName, shape);
+
+		return records.parallelStream()
+					  .map(record -> shape.decodeOrSkip(record, sourceName))
+					  .filter(Objects::nonNull)
+					  .toList();
+	}
+
+	private RawCountry decodeOrSkip(Object record, String sourceName) {
+		if (!(record instanceof Map)) {
+			log.warn("Skipping non-map country record from {}: {}", sourceName, record);
+			return null;
+		}
+		Map<String, Object> data = asMap(record);
+		try {
+			return decode(data);
+		} catch (ClassCastException ex) {
+			// a field of unexpected type (e.g. a list capital in a v2 payload): only this record pays for probing
+			log.debug("{} country from {} does not fit the layout, decoding leniently: {}", this, sourceName, data.get("name"));
+			return decodeLeniently(data);
+		} catch (RuntimeException ex) {
+			log.error("Failed to decode {} country from {}: {}", this, sourceName, data.get("name"), ex);
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asMap(Object record) {
+		return (Map<String, Object>) record;
+	}
+
+	private static Long toLong(Number n) {
+		return n == null ? null : n.longValue();
+	}
+
+	/**
+	 * Fallback for records the detected shape's decoder can't cast: every field is looked up in both
+	 * layouts and read whatever its type. A field that still doesn't fit becomes null (or its first
+	 * element for a list) instead of dropping the record.
+	 */
+	private static RawCountry decodeLeniently(Map<String, Object> data) {
+		String name = data.get("name") instanceof Map<?, ?> names
+				? firstText(names.get("common"), names.get("official"))
+				: text(data.get("name"));
+		String flagUrl = data.get("flags") instanceof Map<?, ?> flags
+				? firstText(flags.get("svg"), flags.get("png"))
+				: text(data.get("flag"));
+
+		return RawCountry.builder()
+						 .name(name)
+						 .capital(text(data.get("capital")))
+						 .region(text(data.get("region")))
+						 .population(parseLong(data.get("population")))
+						 .flagUrl(flagUrl)
+						 .currencyCode(currencyCode(data.get("currencies")))
+						 .build();
+	}
+
+	/** A scalar as text; for a list, its first element. */
+	private static String text(Object o) {
+		if (o instanceof List<?> list) return list.isEmpty() ? null : text(list.getFirst());
+		if (o == null || o instanceof Map) return null;
+		return String.valueOf(o);
+	}
+
+	private static String firstText(Object... candidates) {
+		for (Object candidate : candidates) {
+			String value = text(candidate);
+			if (value != null) return value;
+		}
+		return null;
+	}
+
+	/**
+	 * First currency code from a map keyed by code (v3), a list of {@code {code, ...}} (v2)
+	 * or a list of plain codes.
+	 */
+	private static String currencyCode(Object currencies) {
+		if (currencies instanceof Map<?, ?> byCode) {
+			return byCode.isEmpty() ? null : String.valueOf(byCode.keySet().iterator().next());
+		}
+		if (currencies instanceof List<?> list && !list.isEmpty()) {
+			Object first = list.getFirst();
+			return first instanceof Map<?, ?> currency ? text(currency.get("code")) : text(first);
+		}
+		return text(currencies);
+	}
+
+	/** Null when missing or unparseable; the refresh applies the 0 default. */
+	private static Long parseLong(Object o) {
+		if (o == null) return null;
+		if (o instanceof Number n) return n.longValue();
+		try {
+			return Long.parseLong(String.valueOf(o).trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.osato.countries.services.sources;
+
+import com.osato.countries.models.dtos.CountryField;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A decoded upstream record, before exchange rates and GDP are applied.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class RawCountry {
+	private final String name;
+	private final String capital;
+	private final String region;
+	/** null when the source has no (parseable) population */
+	private final Long population;
+	private final String flagUrl;
+	private final String currencyCode;
+
+	public String nameNormalized() {
+		return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Copy of this record with the given fields taken from {@code other} where it has a value.
+	 */
+	public RawCountry overlay(RawCountry other, Set<CountryField> fields) {
+		RawCountryBuilder merged = toBuilder();
+		for (CountryField field : fields) {
+			switch (field) {
+				case CAPITAL -> { if (other.capital != null) merged.capital(other.capital); }
+				case REGION -> { if (other.region != null) merged.region(other.region); }
+				case POPULATION -> { if (other.population != null) merged.population(other.population); }
+				case FLAG_URL -> { if (other.flagUrl != null) merged.flagUrl(other.flagUrl); }
+				case CURRENCY_CODE -> { if (other.currencyCode != null) merged.currencyCode(other.currencyCode); }
+				default -> { } // name is the join key, the rest is computed at refresh
+			}
+		}
+		return merged.build();
+	}
+}
@@ -0,0 +1,290 @@
+package com.osato.countries;
+
+import com.osato.countries.repositories.CountryTablesRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test of the HTTP API on in-memory H2, with the countries and rates APIs replaced by
+ * {@link UpstreamStubServer} serving recorded payloads.
+ * - statement budget: after a refresh at 1x, 10x and 100x the recorded data, every endpoint must run
+ *   the same (small) number of SQL statements, counted with Hibernate statistics. Growth with the
+ *   row count means an N+1 query. All JDBC executions are also counted at the DataSource
+ *   ({@link JdbcStatementCounter}), which covers the refresh's JdbcTemplate work: it may only grow by
+ *   one batch per {@link CountryTablesRepository#BATCH_SIZE} staged rows.
+ * - concurrent traffic: reads against /countries, /countries/{name} and /status while refreshes run;
+ *   p50/p99 latency and throughput per endpoint are printed, p99 and throughput are asserted.
+ * Load and budgets are system properties, e.g. {@code ./mvnw test -Dtest=CountryApiLoadTests -Dperf.threads=16}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:countries-load;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CountryApiLoadTests {
+	private static final int[] SCALES = {1, 10, 100};
+
+	private static final int LOAD_SCALE = Integer.getInteger("perf.scale", 10);
+	private static final int THREADS = Integer.getInteger("perf.threads", 8);
+	private static final int REQUESTS = Integer.getInteger("perf.requests", 4000);
+	private static final long REFRESH_INTERVAL_MS = Long.getLong("perf.refresh-interval-ms", 500);
+	private static final long READ_P99_MS = Long.getLong("perf.read-p99-ms", 500);
+	private static final long REFRESH_P99_MS = Long.getLong("perf.refresh-p99-ms", 10000);
+	private static final long MIN_READS_PER_SECOND = Long.getLong("perf.min-reads-per-second", 100);
+
+	// Hibernate statements per request, independent of the number of countries
+	private static final Map<String, Long> STATEMENT_BUDGET = Map.of(
+			"GET /countries", 1L,
+			"GET /countries/{name}", 1L,
+			"GET /status", 2L,
+			"POST /countries/refresh", 8L);
+	// JDBC executions per refresh besides the staging batches, when nothing is deleted meanwhile:
+	// refresh lock row, live table lookup, snapshot, staging DELETE, swap lock row, deleted-row check,
+	// seed find + update, dataset version increment + read, view swap
+	private static final long REFRESH_JDBC_OVERHEAD = 11;
+
+	private static final JdbcStatementCounter JDBC = new JdbcStatementCounter();
+
+	private static UpstreamStubServer upstream;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@TestConfiguration
+	static class CountingDataSourceConfig {
+		@Bean
+		static BeanPostProcessor countingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? JDBC.wrap(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	@DynamicPropertySource
+	static void upstreamProperties(DynamicPropertyRegistry registry) throws IOException {
+		upstream = new UpstreamStubServer();
+		registry.add("app.countries-api", upstream::countriesUrl);
+		registry.add("app.rates-api", upstream::ratesUrl);
+		registry.add("app.cache-dir", Files.createTempDirectory("countries-load")::toString);
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.close();
+	}
+
+	@Test
+	@Order(1)
+	void statementCountsDoNotGrowWithData() {
+		// first refresh inserts the metadata rows, later ones update them
+		upstream.setScale(1);
+		assertThat(send("POST", "/countries/refresh")).isEqualTo(200);
+
+		Map<String, Map<Integer, Counts>> counts = new LinkedHashMap<>();
+		for (int scale : SCALES) {
+			upstream.setScale(scale);
+			counts.computeIfAbsent("POST /countries/refresh", k -> new LinkedHashMap<>())
+				  .put(scale, statements("POST", "/countries/refresh"));
+			counts.computeIfAbsent("GET /countries", k -> new LinkedHashMap<>())
+				  .put(scale, statements("GET", "/countries"));
+			counts.computeIfAbsent("GET /countries/{name}", k -> new LinkedHashMap<>())
+				  .put(scale, statements("GET", "/countries/" + encode(upstream.recordedNames().getFirst())));
+			counts.computeIfAbsent("GET /status", k -> new LinkedHashMap<>())
+				  .put(scale, statements("GET", "/status"));
+		}
+
+		System.out.printf("%-26s %12s %12s %12s %8s%n", "statements (Hibernate/JDBC)", "1x", "10x", "100x", "budget");
+		counts.forEach((endpoint, byScale) -> System.out.printf("%-26s %12s %12s %12s %8d%n", endpoint,
+				byScale.get(1), byScale.get(10), byScale.get(100), STATEMENT_BUDGET.get(endpoint)));
+
+		counts.forEach((endpoint, byScale) -> {
+			long hibernate = byScale.get(1).hibernate();
+			assertThat(byScale.values()).extracting(Counts::hibernate)
+										.as("%s Hibernate statements per scale (N+1?)", endpoint)
+										.containsOnly(hibernate);
+			assertThat(hibernate).as("%s Hibernate statements", endpoint)
+								 .isLessThanOrEqualTo(STATEMENT_BUDGET.get(endpoint));
+			if (!endpoint.startsWith("POST")) {
+				assertThat(byScale.values()).extracting(Counts::jdbc)
+											.as("%s JDBC statements per scale", endpoint)
+											.containsOnly(byScale.get(1).jdbc());
+			}
+		});
+		counts.get("POST /countries/refresh").forEach((scale, count) -> {
+			int rows = upstream.recordedCount() * scale;
+			long batches = (rows + CountryTablesRepository.BATCH_SIZE - 1) / CountryTablesRepository.BATCH_SIZE;
+			assertThat(count.jdbc()).as("refresh JDBC statements at %dx (%d staged rows)", scale, rows)
+									.isLessThanOrEqualTo(REFRESH_JDBC_OVERHEAD + batches);
+		});
+	}
+
+	@Test
+	@Order(2)
+	void concurrentTrafficStaysWithinBudget() throws Exception {
+		upstream.setScale(LOAD_SCALE);
+		assertThat(send("POST", "/countries/refresh")).isEqualTo(200);
+
+		List<String> names = upstream.recordedNames();
+		Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+		Map<String, Queue<String>> failures = new ConcurrentHashMap<>();
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread refresher = new Thread(() -> {
+			while (running.get()) {
+				timed("POST /countries/refresh", "POST", "/countries/refresh", latencies, failures);
+				try {
+					Thread.sleep(REFRESH_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}, "load-refresher");
+
+		ExecutorService readers = Executors.newFixedThreadPool(THREADS);
+		long start = System.nanoTime();
+		refresher.start();
+		for (int i = 0; i < REQUESTS; i++) {
+			int n = i;
+			readers.execute(() -> {
+				switch (n % 5) {
+					case 0, 1 -> timed("GET /countries", "GET", "/countries", latencies, failures);
+					case 2, 3 -> timed("GET /countries/{name}", "GET",
+							"/countries/" + encode(names.get(n % names.size())), latencies, failures);
+					default -> timed("GET /status", "GET", "/status", latencies, failures);
+				}
+			});
+		}
+		readers.shutdown();
+		assertThat(readers.awaitTermination(5, TimeUnit.MINUTES)).as("reads finished").isTrue();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		running.set(false);
+		refresher.join();
+
+		System.out.printf("%d reads on %d threads against %d countries, refresh every %d ms%n",
+				REQUESTS, THREADS, upstream.recordedCount() * LOAD_SCALE, REFRESH_INTERVAL_MS);
+		System.out.printf("%-26s %8s %10s %10s %10s%n", "endpoint", "requests", "p50 (ms)", "p99 (ms)", "req/s");
+		Map<String, long[]> sorted = new LinkedHashMap<>();
+		latencies.forEach((endpoint, samples) -> {
+			long[] nanos = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+			sorted.put(endpoint, nanos);
+			System.out.printf("%-26s %8d %10.2f %10.2f %10.1f%n", endpoint, nanos.length,
+					percentile(nanos, 0.50) / 1e6, percentile(nanos, 0.99) / 1e6, nanos.length / seconds);
+		});
+
+		assertThat(failures).as("failed requests").isEmpty();
+		sorted.forEach((endpoint, nanos) -> {
+			long budgetMs = endpoint.startsWith("POST") ? REFRESH_P99_MS : READ_P99_MS;
+			assertThat(percentile(nanos, 0.99) / 1_000_000).as("%s p99 (ms)", endpoint).isLessThanOrEqualTo(budgetMs);
+		});
+		assertThat(REQUESTS / seconds).as("reads per second").isGreaterThanOrEqualTo(MIN_READS_PER_SECOND);
+	}
+
+	private Counts statements(String method, String path) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		JDBC.reset();
+		assertThat(send(method, path)).as("%s %s", method, path).isEqualTo(200);
+		return new Counts(statistics.getPrepareStatementCount(), JDBC.get());
+	}
+
+	private void timed(String endpoint, String method, String path,
+					   Map<String, Queue<Long>> latencies, Map<String, Queue<String>> failures) {
+		long start = System.nanoTime();
+		int status;
+		try {
+			status = send(method, path);
+		} catch (RuntimeException e) {
+			failures.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(e.toString());
+			return;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (status != 200) {
+			failures.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(path + " -> " + status);
+			return;
+		}
+		latencies.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(elapsed);
+	}
+
+	private int send(String method, String path) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+										 .method(method, HttpRequest.BodyPublishers.noBody())
+										 .header("Accept", "application/json")
+										 .build();
+		try {
+			return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static long percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) return 0;
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, index)];
+	}
+
+	private static String encode(String name) {
+		return URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+
+	private record Counts(long hibernate, long jdbc) {
+		@Override
+		public String toString() {
+			return hibernate + "/" + jdbc;
+		}
+	}
+}
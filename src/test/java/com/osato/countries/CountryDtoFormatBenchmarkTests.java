@@ -0,0 +1,121 @@
+package com.osato.countries;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.osato.countries.config.CountryProtobufHttpMessageConverter;
+import com.osato.countries.models.dtos.CountryDto;
+import com.osato.countries.models.dtos.CountryListDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and encode/decode time of a GET /countries response in each
+ * negotiated format. Numbers are printed, only the round trip and relative size are asserted.
+ */
+class CountryDtoFormatBenchmarkTests {
+	private static final int COUNTRIES = 250;
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 500;
+
+	@Test
+	void compareFormats() throws Exception {
+		CountryListDto payload = new CountryListDto(sampleCountries());
+
+		ObjectMapper json = builder().build();
+		ObjectMapper cbor = builder().factory(new CBORFactory()).build();
+		ObjectMapper smile = builder().factory(new SmileFactory()).build();
+		CountryProtobufHttpMessageConverter protobuf = new CountryProtobufHttpMessageConverter(
+				builder().factory(new ProtobufFactory())
+						 .serializationInclusion(JsonInclude.Include.NON_NULL)
+						 .build());
+
+		Map<String, Result> results = new LinkedHashMap<>();
+		results.put("json", run(json.writerFor(CountryListDto.class), json.readerFor(CountryListDto.class), payload));
+		results.put("cbor", run(cbor.writerFor(CountryListDto.class), cbor.readerFor(CountryListDto.class), payload));
+		results.put("smile", run(smile.writerFor(CountryListDto.class), smile.readerFor(CountryListDto.class), payload));
+		results.put("protobuf", run(
+				protobuf.getObjectMapper().writer(protobuf.getCountryListSchema()),
+				protobuf.getObjectMapper().readerFor(CountryListDto.class).with(protobuf.getCountryListSchema()),
+				payload));
+
+		System.out.printf("%-10s %10s %14s %14s%n", "format", "bytes", "encode (us)", "decode (us)");
+		results.forEach((format, r) -> System.out.printf("%-10s %10d %14.1f %14.1f%n",
+				format, r.bytes, r.encodeNanos / 1000.0, r.decodeNanos / 1000.0));
+
+		assertThat(results.get("protobuf").bytes).isLessThan(results.get("json").bytes);
+		assertThat(results.get("smile").bytes).isLessThan(results.get("json").bytes);
+	}
+
+	// mirrors AppConfig: CountryDto's @JsonFilter needs a default filter
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json()
+										  .filters(new SimpleFilterProvider()
+												  .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+	}
+
+	private Result run(ObjectWriter writer, ObjectReader reader, CountryListDto payload) throws Exception {
+		byte[] bytes = writer.writeValueAsBytes(payload);
+		CountryListDto decoded = reader.readValue(bytes);
+		assertThat(decoded.getCountries()).hasSize(COUNTRIES);
+		assertThat(decoded.getCountries().get(7).getName()).isEqualTo(payload.getCountries().get(7).getName());
+		assertThat(decoded.getCountries().get(7).getEstimatedGdp()).isEqualTo(payload.getCountries().get(7).getEstimatedGdp());
+
+		for (int i = 0; i < WARMUP; i++) {
+			reader.readValue(writer.writeValueAsBytes(payload));
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			bytes = writer.writeValueAsBytes(payload);
+		}
+		long encode = (System.nanoTime() - start) / ITERATIONS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			reader.readValue(bytes);
+		}
+		long decode = (System.nanoTime() - start) / ITERATIONS;
+
+		return new Result(bytes.length, encode, decode);
+	}
+
+	private static List<CountryDto> sampleCountries() {
+		Instant refreshedAt = Instant.parse("2025-10-22T12:00:00Z");
+		List<CountryDto> countries = new ArrayList<>(COUNTRIES);
+		for (int i = 0; i < COUNTRIES; i++) {
+			long population = 1_000_000L + 7_919L * i * i;
+			double rate = 0.5 + (i % 37) * 13.37;
+			countries.add(CountryDto.builder()
+									.id((long) i + 1)
+									.name("Country " + i)
+									.capital("Capital " + i)
+									.region(i % 2 == 0 ? "Africa" : "Europe")
+									.population(population)
+									.currencyCode("C" + (100 + i % 150))
+									.exchangeRate(rate)
+									.estimatedGdp(population * 1537.0 / rate)
+									.flagUrl("https://flagcdn.com/country-" + i + ".svg")
+									.lastRefreshedAt(refreshedAt)
+									.build());
+		}
+		return countries;
+	}
+
+	private record Result(int bytes, long encodeNanos, long decodeNanos) {
+	}
+}
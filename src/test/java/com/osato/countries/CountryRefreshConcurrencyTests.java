@@ -0,0 +1,115 @@
+package com.osato.countries;
+
+import com.osato.countries.config.NotFoundException;
+import com.osato.countries.models.dtos.CountryChangeEvent;
+import com.osato.countries.models.dtos.CountryMetricsDto;
+import com.osato.countries.repositories.CountryRepository;
+import com.osato.countries.services.CountryNameFilter;
+import com.osato.countries.services.CountryService;
+import com.osato.countries.services.CountryWebClientService;
+import com.osato.countries.services.analytics.CountryQuery;
+import com.osato.countries.services.changes.CountryChangeBatch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A delete that commits while a refresh is between its snapshot and its swap must not be undone by the swap.
+ * The delete runs from the refresh's name filter rebuild, which sits exactly in that window.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:countries-refresh;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@RecordApplicationEvents
+class CountryRefreshConcurrencyTests {
+	private static UpstreamStubServer upstream;
+
+	@Autowired
+	private CountryWebClientService countryWebClientService;
+
+	@Autowired
+	private CountryService countryService;
+
+	@Autowired
+	private CountryRepository countryRepository;
+
+	@MockitoSpyBean
+	private CountryNameFilter countryNameFilter;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@DynamicPropertySource
+	static void upstreamProperties(DynamicPropertyRegistry registry) throws IOException {
+		upstream = new UpstreamStubServer();
+		registry.add("app.countries-api", upstream::countriesUrl);
+		registry.add("app.rates-api", upstream::ratesUrl);
+		registry.add("app.cache-dir", Files.createTempDirectory("countries-refresh")::toString);
+	}
+
+	@AfterAll
+	static void stopUpstream() {
+		upstream.close();
+	}
+
+	@Test
+	void deleteBetweenSnapshotAndSwapStaysDeleted() throws Exception {
+		upstream.setScale(1);
+		countryWebClientService.syncAllCountries(1L);
+		String name = "Ghana";
+		assertThat(countryRepository.findByNameNormalized("ghana")).isPresent();
+
+		AtomicReference<Throwable> deleteFailure = new AtomicReference<>();
+		doAnswer(invocation -> {
+			invocation.callRealMethod();
+			// another request, so it doesn't share the refresh's transaction
+			Thread delete = new Thread(() -> {
+				try {
+					countryService.deleteByName(name);
+				} catch (Throwable e) {
+					deleteFailure.set(e);
+				}
+			});
+			delete.start();
+			delete.join();
+			return null;
+		}).when(countryNameFilter).rebuild(any());
+
+		// a new seed changes every estimated GDP, so the refresh has an upsert for Ghana to drop
+		int processed = countryWebClientService.syncAllCountries(2L);
+
+		assertThat(deleteFailure.get()).as("delete during refresh").isNull();
+		assertThat(processed).isEqualTo(upstream.recordedCount());
+		assertThat(countryRepository.findByNameNormalized("ghana")).isEmpty();
+		assertThat(countryRepository.count()).isEqualTo(upstream.recordedCount() - 1);
+		assertThatThrownBy(() -> countryService.getByName(name, null)).isSameAs(NotFoundException.COUNTRY);
+		assertThat(countryService.query(CountryQuery.topByGdp(null, 100)))
+				.extracting(CountryMetricsDto::getName)
+				.contains("Nigeria")
+				.doesNotContain(name);
+		assertThat(events.stream(CountryChangeBatch.class).toList().getLast().changes())
+				.extracting(CountryChangeEvent::getName)
+				.contains("Nigeria")
+				.doesNotContain(name);
+	}
+}
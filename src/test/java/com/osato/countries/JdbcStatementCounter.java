@@ -0,0 +1,63 @@
+package com.osato.countries;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts statement executions ({@code execute*}, a batch counts once) on every connection handed out by
+ * a wrapped DataSource, whoever issues them: Hibernate, JdbcTemplate, native queries.
+ */
+class JdbcStatementCounter {
+	private final AtomicLong executions = new AtomicLong();
+
+	DataSource wrap(DataSource dataSource) {
+		return new DelegatingDataSource(dataSource) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return proxy(Connection.class, super.getConnection());
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				return proxy(Connection.class, super.getConnection(username, password));
+			}
+		};
+	}
+
+	long get() {
+		return executions.get();
+	}
+
+	void reset() {
+		executions.set(0);
+	}
+
+	private <T> T proxy(Class<T> type, T target) {
+		return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+			if (target instanceof Statement && method.getName().startsWith("execute")) {
+				executions.incrementAndGet();
+			}
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (target instanceof Connection) {
+				if (result instanceof CallableStatement statement) return proxy(CallableStatement.class, statement);
+				if (result instanceof PreparedStatement statement) return proxy(PreparedStatement.class, statement);
+				if (result instanceof Statement statement) return proxy(Statement.class, statement);
+			}
+			return result;
+		}));
+	}
+}
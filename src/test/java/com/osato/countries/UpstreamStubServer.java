@@ -0,0 +1,107 @@
+package com.osato.countries;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the countries and rates APIs, serving the recorded payloads in
+ * {@code src/test/resources/fixtures}. The countries payload can be scaled: at Nx every recorded
+ * country appears N times, the copies named "&lt;name&gt; 2", "&lt;name&gt; 3", ...
+ */
+class UpstreamStubServer implements AutoCloseable {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<Map<String, Object>> countries;
+	private final byte[] rates;
+	private final Map<Integer, byte[]> scaledCountries = new ConcurrentHashMap<>();
+	private final HttpServer server;
+	private volatile int scale = 1;
+
+	UpstreamStubServer() throws IOException {
+		try (InputStream in = fixture("countries-v2.json")) {
+			countries = objectMapper.readValue(in, new TypeReference<>() {});
+		}
+		try (InputStream in = fixture("rates-usd.json")) {
+			rates = in.readAllBytes();
+		}
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/countries", exchange ->
+				respond(exchange, scaledCountries.computeIfAbsent(scale, this::countriesPayload)));
+		server.createContext("/rates", exchange -> respond(exchange, rates));
+		server.start();
+	}
+
+	String countriesUrl() {
+		return baseUrl() + "/countries";
+	}
+
+	String ratesUrl() {
+		return baseUrl() + "/rates";
+	}
+
+	void setScale(int scale) {
+		this.scale = scale;
+	}
+
+	/** Country names of the recorded (1x) payload. */
+	List<String> recordedNames() {
+		return countries.stream().map(c -> (String) c.get("name")).toList();
+	}
+
+	int recordedCount() {
+		return countries.size();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	private byte[] countriesPayload(int scale) {
+		List<Map<String, Object>> scaled = new ArrayList<>(countries.size() * scale);
+		for (int copy = 1; copy <= scale; copy++) {
+			for (Map<String, Object> country : countries) {
+				Map<String, Object> record = new LinkedHashMap<>(country);
+				if (copy > 1) record.put("name", country.get("name") + " " + copy);
+				scaled.add(record);
+			}
+		}
+		try {
+			return objectMapper.writeValueAsBytes(scaled);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static InputStream fixture(String name) {
+		InputStream in = UpstreamStubServer.class.getClassLoader().getResourceAsStream("fixtures/" + name);
+		if (in == null) throw new IllegalStateException("Missing test fixture " + name);
+		return in;
+	}
+}
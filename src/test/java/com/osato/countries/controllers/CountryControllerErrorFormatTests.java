@@ -0,0 +1,59 @@
+package com.osato.countries.controllers;
+
+import com.osato.countries.config.CountryProtobufHttpMessageConverter;
+import com.osato.countries.config.NotFoundException;
+import com.osato.countries.services.CountryService;
+import com.osato.countries.services.CountryWebClientService;
+import com.osato.countries.services.changes.CountryChangeFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Error responses keep their status (and a JSON body) when the client only accepts protobuf,
+ * which has no schema for error maps.
+ */
+@WebMvcTest(CountryController.class)
+class CountryControllerErrorFormatTests {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private CountryService countryService;
+
+	@MockitoBean
+	private CountryWebClientService countryWebClientService;
+
+	@MockitoBean
+	private CountryChangeFeed countryChangeFeed;
+
+	@Test
+	void notFoundIsReportedToProtobufClients() throws Exception {
+		when(countryService.getByName(eq("atlantis"), any())).thenThrow(NotFoundException.COUNTRY);
+
+		mockMvc.perform(get("/countries/atlantis").accept(CountryProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+			   .andExpect(status().isNotFound())
+			   .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			   .andExpect(jsonPath("$.error").value("Country not found"));
+	}
+
+	@Test
+	void unknownFieldIsReportedToProtobufClients() throws Exception {
+		mockMvc.perform(get("/countries").param("fields", "name,bogus")
+										 .accept(CountryProtobufHttpMessageConverter.APPLICATION_PROTOBUF))
+			   .andExpect(status().isBadRequest())
+			   .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			   .andExpect(jsonPath("$.error").value("Unknown field: bogus"));
+	}
+}
@@ -0,0 +1,61 @@
+package com.osato.countries.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryNameFilterTests {
+	// load() is the only user of the repository
+	private final CountryNameFilter filter = new CountryNameFilter(null);
+
+	@Test
+	void answersTrueUntilBuilt() {
+		assertThat(filter.mightContain("atlantis")).isTrue();
+		filter.remove("atlantis");
+		assertThat(filter.mightContain("atlantis")).isTrue();
+	}
+
+	@Test
+	void addedNamesAreFoundAndRemovedNamesAreNot() {
+		filter.rebuild(List.of("nigeria", "ghana"));
+
+		assertThat(filter.mightContain("nigeria")).isTrue();
+		assertThat(filter.mightContain("ghana")).isTrue();
+		assertThat(filter.mightContain("atlantis")).isFalse();
+
+		filter.remove("ghana");
+		assertThat(filter.mightContain("ghana")).isFalse();
+		assertThat(filter.mightContain("nigeria")).isTrue();
+	}
+
+	@Test
+	void removingOneNameNeverHidesAnotherThatSharesItsSlots() {
+		// ~1000 names x 11 probes in 16k counters: many slots are shared
+		List<String> names = IntStream.range(0, 1000).mapToObj(i -> "country " + i).toList();
+		filter.rebuild(names);
+
+		List<String> removed = names.subList(0, 500), kept = names.subList(500, 1000);
+		removed.forEach(filter::remove);
+
+		assertThat(kept).allMatch(filter::mightContain);
+		long stillReported = removed.stream().filter(filter::mightContain).count();
+		assertThat(stillReported).as("removed names still reported").isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void saturatedCountersAreNeverDecremented() {
+		// a counter that overflowed no longer knows how many names it holds, so it must stay set
+		List<String> names = new ArrayList<>(Collections.nCopies(300, "nigeria"));
+		filter.rebuild(names);
+
+		for (int i = 0; i < 300; i++) {
+			filter.remove("nigeria");
+		}
+		assertThat(filter.mightContain("nigeria")).isTrue();
+	}
+}
@@ -0,0 +1,65 @@
+package com.osato.countries.services;
+
+import com.osato.countries.models.entities.Country;
+import com.osato.countries.services.sources.RawCountry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GDP multipliers depend only on (seed, country): a seed replays a refresh, in any mapping order.
+ */
+class CountryWebClientServiceMappingTests {
+	private static final Map<String, Object> RATES = Map.of("NGN", 1600.5, "GHS", 15.2, "EUR", 0.92);
+	private static final Instant REFRESHED_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+	private final List<RawCountry> records = IntStream.range(0, 60)
+													  .mapToObj(i -> RawCountry.builder()
+																			   .name("Country " + i)
+																			   .population(1_000_000L + i)
+																			   .currencyCode(List.of("NGN", "GHS", "EUR").get(i % 3))
+																			   .build())
+													  .toList();
+
+	@Test
+	void sameSeedGivesSameEstimatedGdp() {
+		Map<String, Double> first = estimatedGdp(records, 42L);
+		Map<String, Double> second = estimatedGdp(records.reversed(), 42L);
+
+		assertThat(first).hasSize(records.size()).doesNotContainValue(null);
+		assertThat(second).isEqualTo(first);
+	}
+
+	@Test
+	void differentSeedGivesDifferentEstimatedGdp() {
+		Map<String, Double> first = estimatedGdp(records, 42L);
+		Map<String, Double> other = estimatedGdp(records, 43L);
+
+		assertThat(other.keySet()).isEqualTo(first.keySet());
+		assertThat(other).isNotEqualTo(first);
+	}
+
+	@Test
+	void gdpStaysWithinMultiplierRange() {
+		estimatedGdp(records, 7L).forEach((name, gdp) -> {
+			RawCountry raw = records.stream().filter(r -> r.getName().equals(name)).findFirst().orElseThrow();
+			double perMultiplier = raw.getPopulation() / ((Number) RATES.get(raw.getCurrencyCode())).doubleValue();
+			assertThat(gdp).as(name).isBetween(perMultiplier * 1000, perMultiplier * 2000);
+		});
+	}
+
+	private static Map<String, Double> estimatedGdp(List<RawCountry> raws, long seed) {
+		Map<String, Double> gdp = new LinkedHashMap<>();
+		for (RawCountry raw : raws) {
+			Country country = CountryWebClientService.mapRecord(raw, RATES, seed, REFRESHED_AT);
+			gdp.put(country.getName(), country.getEstimatedGdp());
+		}
+		return gdp;
+	}
+}
@@ -0,0 +1,142 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.models.dtos.CountryMetricsDto;
+import com.osato.countries.models.entities.Country;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query results are checked against a plain filter-and-sort over the same countries.
+ */
+class CountryColumnStoreTests {
+	private static final int COUNTRIES = 200;
+
+	// distinct populations, GDPs and rates, so rankings have no ties; every 10th rate and 7th GDP is unknown
+	private final List<Country> countries = IntStream.range(0, COUNTRIES)
+													 .mapToObj(i -> Country.builder()
+																		   .id((long) i + 1)
+																		   .name("Country " + i)
+																		   .nameNormalized("country " + i)
+																		   .region(i % 2 == 0 ? "Africa" : "Europe")
+																		   .currencyCode(i % 3 == 0 ? "EUR" : "USD")
+																		   .population((i + 1) * 1000L)
+																		   .exchangeRate(i % 10 == 0 ? null : 1.0 + i)
+																		   .estimatedGdp(i % 7 == 0 ? null : (i * 37 % COUNTRIES) * 1e6)
+																		   .build())
+													 .toList();
+
+	// load() is the only user of the repository
+	private final CountryColumnStore store = new CountryColumnStore(null);
+
+	{
+		store.rebuild(countries);
+	}
+
+	@Test
+	void topKDescendingIsBestFirst() {
+		List<String> result = names(Map.of("limit", "15"));
+
+		assertThat(result).containsExactlyElementsOf(expected(c -> true, Country::getEstimatedGdp, true, 15));
+	}
+
+	@Test
+	void topKAscendingIsSmallestFirst() {
+		List<String> result = names(Map.of("sort_by", "population", "order", "asc", "limit", "10"));
+
+		assertThat(result).containsExactly("Country 0", "Country 1", "Country 2", "Country 3", "Country 4",
+				"Country 5", "Country 6", "Country 7", "Country 8", "Country 9");
+	}
+
+	@Test
+	void fewerMatchesThanLimitReturnsThemAllSorted() {
+		List<String> result = names(Map.of("region", "europe", "currency", "eur", "sort_by", "exchange_rate",
+				"order", "asc", "limit", "1000"));
+
+		assertThat(result).containsExactlyElementsOf(expected(
+				c -> c.getRegion().equals("Europe") && c.getCurrencyCode().equals("EUR"),
+				Country::getExchangeRate, false, 1000));
+	}
+
+	@Test
+	void boundsAreInclusive() {
+		List<String> result = names(Map.of("min_population", "5000", "max_population", "9000",
+				"sort_by", "population", "order", "asc"));
+
+		assertThat(result).containsExactly("Country 4", "Country 5", "Country 6", "Country 7", "Country 8");
+	}
+
+	@Test
+	void narrowestRangeDrivesTheScanWithoutLosingRows() {
+		// population keeps 60 rows, GDP about half of all: both ranges must still apply
+		List<String> result = names(Map.of("min_population", "100000", "max_population", "159000",
+				"max_estimated_gdp", "1e8", "limit", "1000"));
+
+		assertThat(result).containsExactlyElementsOf(expected(
+				c -> c.getPopulation() >= 100_000 && c.getPopulation() <= 159_000
+						&& c.getEstimatedGdp() != null && c.getEstimatedGdp() <= 1e8,
+				Country::getEstimatedGdp, true, 1000));
+	}
+
+	@Test
+	void unknownValuesNeverMatchARangeOrRank() {
+		List<CountryMetricsDto> inRange = store.query(CountryQuery.from(Map.of("min_exchange_rate", "0", "limit", "1000")));
+		List<CountryMetricsDto> ranked = store.query(CountryQuery.from(Map.of("sort_by", "exchange_rate", "limit", "1000")));
+
+		assertThat(inRange).allMatch(c -> c.getExchangeRate() != null);
+		assertThat(ranked).hasSize(COUNTRIES - COUNTRIES / 10)
+						  .allMatch(c -> c.getExchangeRate() != null);
+	}
+
+	@Test
+	void emptyRangeReturnsNothing() {
+		assertThat(names(Map.of("min_population", "9000", "max_population", "5000"))).isEmpty();
+		assertThat(names(Map.of("min_population", "1e12"))).isEmpty();
+	}
+
+	@Test
+	void removedRowsAreSkipped() {
+		String best = names(Map.of("limit", "1")).getFirst();
+
+		store.remove(best.toLowerCase());
+		store.remove("atlantis");
+
+		List<String> result = names(Map.of("limit", "1000"));
+		assertThat(result).doesNotContain(best)
+						  .containsExactlyElementsOf(expected(c -> !c.getName().equals(best), Country::getEstimatedGdp, true, 1000));
+		assertThat(store.count(null)).isEqualTo(COUNTRIES - 1);
+	}
+
+	@Test
+	void removalLeavesEarlierSnapshotsUntouched() {
+		CountryColumns before = new CountryColumns(countries);
+		CountryColumns after = before.without("country 5");
+
+		assertThat(before.removed.isEmpty()).isTrue();
+		assertThat(after.removed.cardinality()).isEqualTo(1);
+		assertThat(after.removed.get(5)).isTrue();
+		assertThat(after.sortedRows).isSameAs(before.sortedRows);
+	}
+
+	private List<String> names(Map<String, String> params) {
+		return store.query(CountryQuery.from(params)).stream().map(CountryMetricsDto::getName).toList();
+	}
+
+	private List<String> expected(Predicate<Country> filter, Function<Country, Double> key, boolean descending, int limit) {
+		Comparator<Country> order = Comparator.comparing(key);
+		return countries.stream()
+						.filter(filter)
+						.filter(c -> key.apply(c) != null)
+						.sorted(descending ? order.reversed() : order)
+						.limit(limit)
+						.map(Country::getName)
+						.toList();
+	}
+}
@@ -0,0 +1,44 @@
+package com.osato.countries.services.analytics;
+
+import com.osato.countries.config.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountryQueryTests {
+	@Test
+	void parsesBoundsPerMetric() {
+		CountryQuery query = CountryQuery.from(Map.of("min_population", "1000000", "max_gdp_per_capita", "5e4",
+				"region", "Africa", "sort_by", "gdp_per_capita", "order", "asc", "limit", "5"));
+
+		assertThat(query.min(Metric.POPULATION)).isEqualTo(1_000_000);
+		assertThat(query.max(Metric.GDP_PER_CAPITA)).isEqualTo(5e4);
+		assertThat(query.min(Metric.ESTIMATED_GDP)).isNaN();
+		assertThat(query.getSortBy()).isEqualTo(Metric.GDP_PER_CAPITA);
+		assertThat(query.isDescending()).isFalse();
+		assertThat(query.getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void rejectsRangeOnUnknownMetric() {
+		assertThatThrownBy(() -> CountryQuery.from(Map.of("min_gdp", "1e12")))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Unknown range parameter: min_gdp");
+		assertThatThrownBy(() -> CountryQuery.from(Map.of("max_", "1")))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void rejectsMalformedValues() {
+		assertThatThrownBy(() -> CountryQuery.from(Map.of("min_population", "lots")))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("min_population must be a number");
+		assertThatThrownBy(() -> CountryQuery.from(Map.of("limit", "0")))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> CountryQuery.from(Map.of("order", "up")))
+				.isInstanceOf(BadRequestException.class);
+	}
+}
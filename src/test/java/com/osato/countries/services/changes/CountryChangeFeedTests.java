@@ -0,0 +1,224 @@
+package com.osato.countries.services.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osato.countries.models.dtos.CountryChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryChangeFeedTests {
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	private final List<CountryChangeFeed> feeds = new ArrayList<>();
+
+	@AfterEach
+	void stopFeeds() {
+		feeds.forEach(CountryChangeFeed::stop);
+	}
+
+	@Test
+	void deliversBatchesInOrderWithRunScopedIds() {
+		CountryChangeFeed feed = feed(16, 16, 60_000);
+		RecordingEmitter client = new RecordingEmitter();
+		feed.subscribe(null, client);
+
+		feed.publish(batch(1, "Nigeria", "Ghana"));
+
+		await(() -> client.events.size() == 3);
+		String epoch = epoch(feed);
+		assertThat(client.events.get(0)).contains("id:" + epoch + "-1", "event:upsert", "Nigeria");
+		assertThat(client.events.get(1)).contains("id:" + epoch + "-2", "event:upsert", "Ghana");
+		assertThat(client.events.get(2)).contains("id:" + epoch + "-3", "event:version");
+	}
+
+	@Test
+	void replaysWhatFollowsLastEventId() {
+		CountryChangeFeed feed = feed(16, 16, 60_000);
+		feed.publish(batch(1, "Nigeria", "Ghana"));
+
+		RecordingEmitter client = new RecordingEmitter();
+		feed.subscribe(epoch(feed) + "-1", client);
+		feed.publish(batch(2, "Kenya"));
+
+		await(() -> client.events.size() == 4);
+		assertThat(client.events).extracting(CountryChangeFeedTests::id)
+								 .containsExactly("2", "3", "4", "5");
+		assertThat(client.events).noneMatch(event -> event.contains("event:reset"));
+	}
+
+	@Test
+	void evictedLastEventIdGetsReset() {
+		CountryChangeFeed feed = feed(4, 16, 60_000);
+		feed.publish(batch(1, "Nigeria", "Ghana", "Kenya")); // ids 1-4
+		feed.publish(batch(2, "Togo"));                      // ids 5-6, 1 and 2 evicted
+
+		RecordingEmitter client = new RecordingEmitter();
+		feed.subscribe(epoch(feed) + "-1", client);
+
+		await(() -> !client.events.isEmpty());
+		assertThat(client.events.getFirst()).contains("event:reset", "\"version\":2");
+		assertThat(client.events).hasSize(1);
+	}
+
+	@Test
+	void idFromAnotherRunGetsReset() {
+		CountryChangeFeed feed = feed(16, 16, 60_000);
+		feed.publish(batch(1, "Nigeria"));
+
+		RecordingEmitter previousRun = new RecordingEmitter();
+		RecordingEmitter malformed = new RecordingEmitter();
+		feed.subscribe("0-1", previousRun);
+		feed.subscribe("1", malformed);
+
+		await(() -> !previousRun.events.isEmpty() && !malformed.events.isEmpty());
+		assertThat(previousRun.events.getFirst()).contains("event:reset");
+		assertThat(malformed.events.getFirst()).contains("event:reset");
+	}
+
+	@Test
+	void subscriberThatStopsReadingIsResetWithoutDelayingOthers() {
+		CountryChangeFeed feed = feed(64, 4, 60_000);
+		RecordingEmitter stalled = new RecordingEmitter(new CountDownLatch(1));
+		RecordingEmitter reader = new RecordingEmitter();
+		feed.subscribe(null, stalled);
+		feed.subscribe(null, reader);
+
+		feed.publish(batch(1, "A", "B", "C", "D", "E", "F", "G", "H", "I"));
+
+		// the stalled client's writes never return, yet the other client gets the whole batch
+		await(() -> reader.events.size() == 10);
+		assertThat(stalled.completed).isFalse();
+
+		stalled.release.countDown();
+		await(() -> stalled.completed);
+		assertThat(stalled.events.getLast()).contains("event:reset");
+
+		feed.publish(batch(2, "J"));
+		await(() -> reader.events.size() == 12);
+		assertThat(stalled.events.getLast()).contains("event:reset");
+	}
+
+	@Test
+	void idleSubscribersGetKeepalives() {
+		CountryChangeFeed feed = feed(16, 16, 20);
+		RecordingEmitter client = new RecordingEmitter();
+		feed.subscribe(null, client);
+
+		await(() -> !client.events.isEmpty());
+		assertThat(client.events.getFirst()).startsWith(":keepalive");
+	}
+
+	private CountryChangeFeed feed(int bufferSize, int subscriberQueue, long heartbeatMs) {
+		// the metadata service is only read on startup
+		CountryChangeFeed feed = new CountryChangeFeed(null);
+		ReflectionTestUtils.setField(feed, "bufferSize", bufferSize);
+		ReflectionTestUtils.setField(feed, "subscriberQueue", subscriberQueue);
+		ReflectionTestUtils.setField(feed, "heartbeatMs", heartbeatMs);
+		ReflectionTestUtils.setField(feed, "timeoutMs", 60_000L);
+		feed.start();
+		feeds.add(feed);
+		return feed;
+	}
+
+	private static CountryChangeBatch batch(long version, String... names) {
+		List<CountryChangeEvent> changes = new ArrayList<>();
+		for (String name : names) {
+			changes.add(CountryChangeEvent.builder()
+										  .type(CountryChangeEvent.UPSERT)
+										  .name(name)
+										  .version(version)
+										  .changes(Map.of("capital", name + " City"))
+										  .build());
+		}
+		return new CountryChangeBatch(version, changes);
+	}
+
+	private static String epoch(CountryChangeFeed feed) {
+		return (String) ReflectionTestUtils.getField(feed, "epoch");
+	}
+
+	/** Sequence part of the event id. */
+	private static String id(String event) {
+		String line = event.lines().filter(l -> l.startsWith("id:")).findFirst().orElseThrow();
+		return line.substring(line.indexOf('-') + 1);
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition met within 5s").isLessThan(deadline);
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Records each event as SSE text. With a latch, every send blocks until it is released,
+	 * like a client whose TCP window is full.
+	 */
+	private static class RecordingEmitter extends SseEmitter {
+		final List<String> events = new CopyOnWriteArrayList<>();
+		final CountDownLatch release;
+		volatile boolean completed;
+
+		RecordingEmitter() {
+			this(null);
+		}
+
+		RecordingEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+			StringBuilder text = new StringBuilder();
+			for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+				text.append(part.getData() instanceof String s ? s : json(part.getData()));
+			}
+			events.add(text.toString());
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		@Override
+		public void completeWithError(Throwable ex) {
+			completed = true;
+		}
+
+		private static String json(Object data) {
+			try {
+				return JSON.writeValueAsString(data);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
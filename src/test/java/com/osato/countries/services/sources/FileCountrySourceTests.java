@@ -0,0 +1,62 @@
+package com.osato.countries.services.sources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osato.countries.config.ExternalApiException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileCountrySourceTests {
+	@TempDir
+	private Path dir;
+
+	@Test
+	void readsJsonArrayInV2Layout() throws IOException {
+		Path file = write("countries.json", """
+				[
+				  {"name": "Nigeria", "capital": "Abuja", "population": 206139587, "currencies": [{"code": "NGN"}]},
+				  {"name": "Ghana", "capital": "Accra", "population": 31072940, "currencies": [{"code": "GHS"}]}
+				]""");
+
+		List<RawCountry> countries = source(file).fetch();
+
+		assertThat(countries).extracting(RawCountry::getName).containsExactly("Nigeria", "Ghana");
+		assertThat(countries).extracting(RawCountry::getCurrencyCode).containsExactly("NGN", "GHS");
+	}
+
+	@Test
+	void readsNdjsonInV3Layout() throws IOException {
+		Path file = write("countries.ndjson", """
+				{"name": {"common": "Nigeria"}, "capital": ["Abuja"], "population": 206139587, "currencies": {"NGN": {}}}
+				{"name": {"common": "Ghana"}, "capital": ["Accra"], "population": 31072940, "currencies": {"GHS": {}}}
+				""");
+
+		List<RawCountry> countries = source(file).fetch();
+
+		assertThat(countries).extracting(RawCountry::getName).containsExactly("Nigeria", "Ghana");
+		assertThat(countries).extracting(RawCountry::getCapital).containsExactly("Abuja", "Accra");
+		assertThat(countries).extracting(RawCountry::getCurrencyCode).containsExactly("NGN", "GHS");
+	}
+
+	@Test
+	void missingFileIsAnExternalApiFailure() {
+		assertThatThrownBy(() -> source(dir.resolve("missing.json")).fetch())
+				.isInstanceOf(ExternalApiException.class)
+				.hasMessage("offline");
+	}
+
+	private Path write(String name, String content) throws IOException {
+		return Files.writeString(dir.resolve(name), content);
+	}
+
+	private static FileCountrySource source(Path file) {
+		return new FileCountrySource("offline", file, new ObjectMapper());
+	}
+}
@@ -0,0 +1,99 @@
+package com.osato.countries.services.sources;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadShapeTests {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final String V2_NIGERIA = """
+			{"name": "Nigeria", "capital": "Abuja", "region": "Africa", "population": 206139587,
+			 "flag": "https://flagcdn.com/ng.svg",
+			 "currencies": [{"code": "NGN", "name": "Nigerian naira", "symbol": "₦"}]}""";
+	private static final String V3_NIGERIA = """
+			{"name": {"common": "Nigeria", "official": "Federal Republic of Nigeria"}, "capital": ["Abuja"],
+			 "region": "Africa", "population": 206139587,
+			 "flags": {"png": "https://flagcdn.com/w320/ng.png", "svg": "https://flagcdn.com/ng.svg"},
+			 "currencies": {"NGN": {"name": "Nigerian naira", "symbol": "₦"}}}""";
+
+	@Test
+	void detectsV2FromStringName() {
+		assertThat(PayloadShape.detect(record(V2_NIGERIA))).isEqualTo(PayloadShape.V2);
+	}
+
+	@Test
+	void detectsV3FromNameObject() {
+		assertThat(PayloadShape.detect(record(V3_NIGERIA))).isEqualTo(PayloadShape.V3);
+	}
+
+	@Test
+	void bothLayoutsDecodeToTheSameCountry() {
+		RawCountry v2 = PayloadShape.decodeAll(List.of(record(V2_NIGERIA)), "v2").getFirst();
+		RawCountry v3 = PayloadShape.decodeAll(List.of(record(V3_NIGERIA)), "v3").getFirst();
+
+		for (RawCountry country : List.of(v2, v3)) {
+			assertThat(country.getName()).isEqualTo("Nigeria");
+			assertThat(country.getCapital()).isEqualTo("Abuja");
+			assertThat(country.getRegion()).isEqualTo("Africa");
+			assertThat(country.getPopulation()).isEqualTo(206139587L);
+			assertThat(country.getFlagUrl()).isEqualTo("https://flagcdn.com/ng.svg");
+			assertThat(country.getCurrencyCode()).isEqualTo("NGN");
+		}
+	}
+
+	@Test
+	void missingFieldsStayNull() {
+		RawCountry antarctica = PayloadShape.decodeAll(List.of(record("""
+				{"name": "Antarctica", "region": "Polar"}""")), "v2").getFirst();
+
+		assertThat(antarctica.getName()).isEqualTo("Antarctica");
+		assertThat(antarctica.getPopulation()).isNull();
+		assertThat(antarctica.getCurrencyCode()).isNull();
+		assertThat(antarctica.getCapital()).isNull();
+	}
+
+	@Test
+	void recordThatDoesNotFitTheDetectedShapeIsDecodedLeniently() {
+		// detected as v2 from the first record; the second has a list capital and plain currency codes
+		List<RawCountry> decoded = PayloadShape.decodeAll(List.of(record(V2_NIGERIA), record("""
+				{"name": "South Africa", "capital": ["Pretoria", "Cape Town"], "region": "Africa",
+				 "population": "59308690", "currencies": ["ZAR"]}""")), "mixed");
+
+		assertThat(decoded).hasSize(2);
+		RawCountry southAfrica = decoded.get(1);
+		assertThat(southAfrica.getName()).isEqualTo("South Africa");
+		assertThat(southAfrica.getCapital()).isEqualTo("Pretoria");
+		assertThat(southAfrica.getPopulation()).isEqualTo(59308690L);
+		assertThat(southAfrica.getCurrencyCode()).isEqualTo("ZAR");
+		assertThat(decoded.getFirst().getCapital()).isEqualTo("Abuja");
+	}
+
+	@Test
+	void unparseablePopulationIsNullNotZero() {
+		RawCountry country = PayloadShape.decodeAll(List.of(record("""
+				{"name": "Nowhere", "population": "unknown"}""")), "v2").getFirst();
+
+		assertThat(country.getPopulation()).isNull();
+	}
+
+	@Test
+	void nonObjectRecordsAreSkipped() {
+		List<RawCountry> decoded = PayloadShape.decodeAll(List.of("Nigeria", record(V2_NIGERIA), 42), "v2");
+
+		assertThat(decoded).extracting(RawCountry::getName).containsExactly("Nigeria");
+	}
+
+	static Map<String, Object> record(String json) {
+		try {
+			return MAPPER.readValue(json, new TypeReference<>() {});
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+}
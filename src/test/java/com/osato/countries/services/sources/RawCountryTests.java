@@ -0,0 +1,61 @@
+package com.osato.countries.services.sources;
+
+import com.osato.countries.models.dtos.CountryField;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawCountryTests {
+	private final RawCountry base = RawCountry.builder()
+											  .name("Nigeria")
+											  .capital("Abuja")
+											  .region("Africa")
+											  .population(206139587L)
+											  .flagUrl("https://flagcdn.com/ng.svg")
+											  .currencyCode("NGN")
+											  .build();
+
+	@Test
+	void overlayTakesOnlyTheConfiguredFields() {
+		RawCountry other = RawCountry.builder()
+									 .name("NIGERIA")
+									 .capital("Lagos")
+									 .region("West Africa")
+									 .population(1L)
+									 .currencyCode("USD")
+									 .build();
+
+		RawCountry merged = base.overlay(other, Set.of(CountryField.CURRENCY_CODE, CountryField.CAPITAL));
+
+		assertThat(merged.getCurrencyCode()).isEqualTo("USD");
+		assertThat(merged.getCapital()).isEqualTo("Lagos");
+		assertThat(merged.getRegion()).isEqualTo("Africa");
+		assertThat(merged.getPopulation()).isEqualTo(206139587L);
+	}
+
+	@Test
+	void missingValuesNeverOverwrite() {
+		// e.g. a currency file without populations must not zero them
+		RawCountry other = RawCountry.builder().name("Nigeria").currencyCode("USD").build();
+
+		RawCountry merged = base.overlay(other, EnumSet.allOf(CountryField.class));
+
+		assertThat(merged.getPopulation()).isEqualTo(206139587L);
+		assertThat(merged.getCapital()).isEqualTo("Abuja");
+		assertThat(merged.getFlagUrl()).isEqualTo("https://flagcdn.com/ng.svg");
+		assertThat(merged.getCurrencyCode()).isEqualTo("USD");
+	}
+
+	@Test
+	void nameIsTheJoinKeyAndIsKept() {
+		RawCountry other = RawCountry.builder().name("NIGERIA").build();
+
+		RawCountry merged = base.overlay(other, EnumSet.allOf(CountryField.class));
+
+		assertThat(merged.getName()).isEqualTo("Nigeria");
+		assertThat(merged.nameNormalized()).isEqualTo(other.nameNormalized());
+	}
+}